@@ -0,0 +1,248 @@
+//
+// JSExportProcessor.java
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package org.liquidplayer.webkit.javascriptcore.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a JSBinding for each interface annotated with
+ * org.liquidplayer.webkit.javascriptcore.JSExport.  The binding for interface 'Foo' is the
+ * class 'Foo$$JSBinding' in the same package.  It lists the interface's methods in
+ * declaration order and calls them through a switch, unmarshalling primitive, String and
+ * JSValue arguments directly and anything else through JSValue.toJavaObject().  Checked
+ * exceptions thrown by a method are reported to JavaScript as a JSException, as they are
+ * when the method is called through reflection.
+ */
+public class JSExportProcessor extends AbstractProcessor {
+    private static final String PACKAGE = "org.liquidplayer.webkit.javascriptcore";
+    private static final String JSEXPORT = PACKAGE + ".JSExport";
+    private static final String JSVALUE = PACKAGE + ".JSValue";
+    private static final String BINDING_SUFFIX = "$$JSBinding";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(JSEXPORT);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.INTERFACE) {
+                    error(element, "@JSExport may only be applied to interfaces");
+                    continue;
+                }
+                TypeElement iface = (TypeElement) element;
+                try {
+                    generate(iface);
+                } catch (IOException e) {
+                    error(iface, "Unable to write JSBinding: " + e.getMessage());
+                }
+            }
+        }
+        return true;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private List<ExecutableElement> methods(TypeElement iface) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Element member : iface.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.METHOD ||
+                    member.getModifiers().contains(Modifier.STATIC)) continue;
+            ExecutableElement method = (ExecutableElement) member;
+            if (!names.add(method.getSimpleName().toString())) {
+                error(method, "Overloaded methods cannot be exported to JavaScript");
+            }
+            if (!method.getTypeParameters().isEmpty()) {
+                error(method, "Generic methods cannot be exported to JavaScript");
+            }
+            methods.add(method);
+        }
+        return methods;
+    }
+
+    private static String binaryName(TypeElement type) {
+        if (type.getNestingKind() == NestingKind.MEMBER) {
+            return binaryName((TypeElement) type.getEnclosingElement()) + "$" +
+                    type.getSimpleName();
+        }
+        return type.getSimpleName().toString();
+    }
+
+    private String argument(TypeMirror type, int index) {
+        String args = "args, " + index;
+        switch (type.getKind()) {
+            case BOOLEAN: return "booleanArg(" + args + ")";
+            case BYTE:    return "byteArg(" + args + ")";
+            case SHORT:   return "shortArg(" + args + ")";
+            case INT:     return "intArg(" + args + ")";
+            case LONG:    return "longArg(" + args + ")";
+            case FLOAT:   return "floatArg(" + args + ")";
+            case DOUBLE:  return "doubleArg(" + args + ")";
+            case CHAR:    return "(char) intArg(" + args + ")";
+            default:
+        }
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        String name = erased.toString();
+        if (name.equals("java.lang.String")) return "stringArg(" + args + ")";
+        if (name.equals(JSVALUE)) return "valueArg(" + args + ")";
+        return "(" + type + ") arg(" + args + ", " + name + ".class)";
+    }
+
+    /* Whether 'method' declares any checked exceptions, which the binding must catch */
+    private boolean throwsChecked(ExecutableElement method) {
+        Types types = processingEnv.getTypeUtils();
+        Elements elements = processingEnv.getElementUtils();
+        TypeMirror runtime = elements.getTypeElement("java.lang.RuntimeException").asType();
+        TypeMirror error = elements.getTypeElement("java.lang.Error").asType();
+        for (TypeMirror thrown : method.getThrownTypes()) {
+            if (!types.isSubtype(thrown, runtime) && !types.isSubtype(thrown, error)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement iface) throws IOException {
+        if (iface.getModifiers().contains(Modifier.PRIVATE)) {
+            error(iface, "@JSExport interfaces may not be private");
+            return;
+        }
+        List<ExecutableElement> methods = methods(iface);
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(iface);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String className = binaryName(iface) + BINDING_SUFFIX;
+        String ifaceName = iface.getQualifiedName().toString();
+
+        StringBuilder out = new StringBuilder();
+        out.append("// Generated by JSExportProcessor.  Do not edit.\n");
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("import ").append(PACKAGE).append(".JSBinding;\n");
+        out.append("import ").append(PACKAGE).append(".JSContext;\n");
+        out.append("import ").append(JSVALUE).append(";\n\n");
+        out.append("public final class ").append(className).append(" extends JSBinding {\n");
+        out.append("    public ").append(className).append("() {\n");
+        out.append("        super(");
+        for (int i=0; i<methods.size(); i++) {
+            if (i > 0) out.append(", ");
+            out.append('"').append(methods.get(i).getSimpleName()).append('"');
+        }
+        out.append(");\n");
+        out.append("    }\n\n");
+        out.append("    @Override\n");
+        out.append("    @SuppressWarnings(\"unchecked\")\n");
+        out.append("    protected JSValue invoke(int index, Object target, JSContext context,\n");
+        out.append("                             JSValue [] args) {\n");
+        out.append("        ").append(ifaceName).append(" t = (").append(ifaceName)
+                .append(") target;\n");
+        out.append("        switch (index) {\n");
+        for (int i=0; i<methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            StringBuilder call = new StringBuilder();
+            call.append("t.").append(method.getSimpleName()).append("(");
+            List<? extends VariableElement> params = method.getParameters();
+            for (int p=0; p<params.size(); p++) {
+                if (p > 0) call.append(", ");
+                call.append(argument(params.get(p).asType(), p));
+            }
+            call.append(")");
+            out.append("            case ").append(i).append(":\n");
+            String indent = "                ";
+            boolean checked = throwsChecked(method);
+            if (checked) {
+                out.append(indent).append("try {\n");
+                indent += "    ";
+            }
+            if (method.getReturnType().getKind() == TypeKind.VOID) {
+                out.append(indent).append(call).append(";\n");
+                out.append(indent).append("return undefined(context);\n");
+            } else {
+                out.append(indent).append("return value(context, ").append(call).append(");\n");
+            }
+            if (checked) {
+                out.append("                } catch (RuntimeException | Error e) {\n");
+                out.append("                    throw e;\n");
+                out.append("                } catch (Throwable e) {\n");
+                out.append("                    return exception(context, e);\n");
+                out.append("                }\n");
+            }
+        }
+        out.append("            default:\n");
+        out.append("                throw new IndexOutOfBoundsException(String.valueOf(index));\n");
+        out.append("        }\n");
+        out.append("    }\n");
+        out.append("}\n");
+
+        String qualified = packageName.isEmpty() ? className : packageName + "." + className;
+        Writer writer = processingEnv.getFiler().createSourceFile(qualified, iface).openWriter();
+        try {
+            writer.write(out.toString());
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -45,7 +45,12 @@ LOCAL_SRC_FILES := JSContext.cpp \
                    JSString.cpp \
                    JSValue.cpp \
                    Instance.cpp \
-                   JSFunction.cpp
+                   JSFunction.cpp \
+                   JSTypedArray.cpp \
+                   JSBaseArray.cpp \
+                   JSConvert.cpp \
+                   JSON.cpp \
+                   JSJNI.cpp
 
 LOCAL_SHARED_LIBRARIES := javascriptcore
 
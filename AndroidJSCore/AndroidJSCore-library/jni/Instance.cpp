@@ -34,52 +34,38 @@
 #include "Instance.h"
 
 Instance::Instance(JNIEnv *env, jobject thiz, JSContextRef ctx,
-        JSClassDefinition def, JSStringRef name)
+        JSClassRef classRef, __attribute__((unused)) JSStringRef name)
 {
-    env->GetJavaVM(&jvm);
-    definition = def;
-    definition.finalize = StaticFinalizeCallback;
-    classRef = JSClassCreate(&definition);
-    objRef = JSObjectMake(ctx, classRef, name);
+    // The private slot maps the object back to its Instance in the callbacks
+    objRef = JSObjectMake(ctx, classRef, this);
     JSValueProtect(ctx, objRef);
     this->thiz = env->NewWeakGlobalRef(thiz);
-
-    mutex.lock();
-    objMap[objRef] = this;
-    mutex.unlock();
 }
 
 Instance::~Instance()
 {
-    JSClassRelease(classRef);
-    JNIEnv *env;
-    int getEnvStat = jvm->GetEnv((void**)&env, JNI_VERSION_1_6);
-    if (getEnvStat == JNI_EDETACHED) {
-        jvm->AttachCurrentThread(&env, NULL);
-    }
-    env->DeleteWeakGlobalRef(thiz);
+    getJNIEnv()->DeleteWeakGlobalRef(thiz);
+}
 
-    mutex.lock();
-    objMap.erase(objRef);
-    mutex.unlock();
+/* Class refs are shared by every instance of a kind, in every context, and are created
+ * lazily on first use.  They live for the life of the process and are never released. */
+JSClassRef Instance::CreateClass(JSClassDefinition definition)
+{
+    definition.finalize = StaticFinalizeCallback;
+    return JSClassCreate(&definition);
+}
 
-    if (getEnvStat == JNI_EDETACHED) {
-        jvm->DetachCurrentThread();
-    }
+JSClassRef Instance::InstanceClass()
+{
+    static JSClassRef classRef = CreateClass(kJSClassDefinitionEmpty);
+    return classRef;
 }
 
 Instance* Instance::getInstance(JSObjectRef objref)
 {
-    Instance *inst = NULL;
-    mutex.lock();
-    inst = objMap[objref];
-    mutex.unlock();
-    return inst;
+    return (Instance *) JSObjectGetPrivate(objref);
 }
 
-std::map<JSObjectRef,Instance *> Instance::objMap = std::map<JSObjectRef,Instance *>();
-std::mutex Instance::mutex;
-
 void Instance::StaticFinalizeCallback(JSObjectRef object)
 {
     Instance *thiz = getInstance(object);
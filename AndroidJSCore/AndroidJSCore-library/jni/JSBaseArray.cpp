@@ -0,0 +1,221 @@
+//
+// JSBaseArray.cpp
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+#include "JSJNI.h"
+#include "JSConvert.h"
+
+#include <vector>
+
+NATIVE(JSBaseArray,void,getLength) (PARAMS, jlong ctx, jlong object, jobject out) {
+    static JSStringRef length = JSStringCreateWithUTF8CString("length");
+
+    JSValueRef exception = NULL;
+    double number = 0;
+
+    JSValueRef value = JSObjectGetProperty((JSContextRef)ctx, (JSObjectRef)object, length,
+            &exception);
+    if (!exception) {
+        number = JSValueToNumber((JSContextRef)ctx, value, &exception);
+    }
+    env->SetDoubleField( out, fidReturnNumber, number);
+    env->SetLongField( out, fidReturnException, (long) exception);
+}
+
+NATIVE(JSBaseArray,void,getNumberAtIndex) (PARAMS, jlong ctx, jlong object, jint index,
+    jobject out) {
+
+    JSValueRef exception = NULL;
+    double number = 0;
+
+    JSValueRef value = JSObjectGetPropertyAtIndex((JSContextRef)ctx, (JSObjectRef)object,
+            (unsigned)index, &exception);
+    if (!exception) {
+        number = JSValueToNumber((JSContextRef)ctx, value, &exception);
+    }
+    env->SetDoubleField( out, fidReturnNumber, number);
+    env->SetLongField( out, fidReturnException, (long) exception);
+}
+
+NATIVE(JSBaseArray,void,setNumberAtIndex) (PARAMS, jlong ctx, jlong object, jint index,
+    jdouble number, jobject out) {
+
+    JSValueRef exception = NULL;
+
+    JSObjectSetPropertyAtIndex((JSContextRef)ctx, (JSObjectRef)object, (unsigned)index,
+            JSValueMakeNumber((JSContextRef)ctx, number), &exception);
+    env->SetLongField( out, fidReturnException, (long) exception);
+}
+
+/* Array kinds for bulk conversion, must match the KIND_ constants in JSBaseArray.java */
+enum {
+    KIND_DOUBLE = 0,
+    KIND_INT,
+    KIND_BOOLEAN,
+    KIND_STRING,
+    KIND_VALUE
+};
+
+NATIVE(JSBaseArray,void,makeArrayFrom) (PARAMS, jlong ctx, jobjectArray values,
+    jlongArray valueRefs, jobject out) {
+
+    JSValueRef exception = NULL;
+
+    jsize len = env->GetArrayLength(values);
+    std::vector<JSValueRef> elements((size_t)len);
+    // The collector does not scan the heap, so values created here are protected until
+    // they are held by the array
+    std::vector<JSValueRef> created;
+    jlong *refs = env->GetLongArrayElements(valueRefs, NULL);
+    for (jsize i=0; i<len; i++) {
+        if (refs[i] != 0) {
+            elements[i] = (JSValueRef) refs[i];
+        } else {
+            jobject value = env->GetObjectArrayElement(values, i);
+            elements[i] = JSConvert::ToJSValue(env, (JSContextRef)ctx, value);
+            if (elements[i] == NULL) elements[i] = JSValueMakeUndefined((JSContextRef)ctx);
+            env->DeleteLocalRef(value);
+            JSValueProtect((JSContextRef) ctx, elements[i]);
+            created.push_back(elements[i]);
+        }
+    }
+    env->ReleaseLongArrayElements(valueRefs, refs, JNI_ABORT);
+
+    JSObjectRef objRef = JSObjectMakeArray((JSContextRef)ctx, (size_t)len,
+            (len==0) ? NULL : elements.data(), &exception);
+    JSValueProtect((JSContextRef) ctx, objRef);
+    for (size_t i=0; i<created.size(); i++) {
+        JSValueUnprotect((JSContextRef) ctx, created[i]);
+    }
+
+    env->SetLongField( out, fidReturnReference, (jlong)objRef );
+    env->SetLongField( out, fidReturnException, (long) exception);
+}
+
+NATIVE(JSBaseArray,void,makeArrayFromPrimitives) (PARAMS, jlong ctx, jobject values,
+    jint kind, jobject out) {
+
+    JSValueRef exception = NULL;
+
+    jsize len = env->GetArrayLength((jarray)values);
+    std::vector<JSValueRef> elements((size_t)len);
+    switch (kind) {
+        case KIND_DOUBLE: {
+            std::vector<jdouble> data((size_t)len);
+            env->GetDoubleArrayRegion((jdoubleArray)values, 0, len, data.data());
+            for (jsize i=0; i<len; i++)
+                elements[i] = JSValueMakeNumber((JSContextRef)ctx, data[i]);
+        } break;
+        case KIND_INT: {
+            std::vector<jint> data((size_t)len);
+            env->GetIntArrayRegion((jintArray)values, 0, len, data.data());
+            for (jsize i=0; i<len; i++)
+                elements[i] = JSValueMakeNumber((JSContextRef)ctx, data[i]);
+        } break;
+        case KIND_BOOLEAN: {
+            std::vector<jboolean> data((size_t)len);
+            env->GetBooleanArrayRegion((jbooleanArray)values, 0, len, data.data());
+            for (jsize i=0; i<len; i++)
+                elements[i] = JSValueMakeBoolean((JSContextRef)ctx, data[i]);
+        } break;
+        default:
+            len = 0;
+            break;
+    }
+
+    JSObjectRef objRef = JSObjectMakeArray((JSContextRef)ctx, (size_t)len,
+            (len==0) ? NULL : elements.data(), &exception);
+    JSValueProtect((JSContextRef) ctx, objRef);
+
+    env->SetLongField( out, fidReturnReference, (jlong)objRef );
+    env->SetLongField( out, fidReturnException, (long) exception);
+}
+
+/* Copies 'count' elements starting at 'offset' into 'dst', which is a double[], int[],
+ * boolean[], String[] or long[] according to 'kind'.  For KIND_VALUE the references are
+ * protected, and the caller must unprotect them. */
+NATIVE(JSBaseArray,void,copyElementsTo) (PARAMS, jlong ctx, jlong object, jint offset,
+    jint count, jint kind, jobject dst, jobject out) {
+
+    JSValueRef exception = NULL;
+    std::vector<jdouble> numbers(kind == KIND_DOUBLE || kind == KIND_INT ? (size_t)count : 0);
+    std::vector<jboolean> booleans(kind == KIND_BOOLEAN ? (size_t)count : 0);
+    std::vector<jlong> refs(kind == KIND_VALUE ? (size_t)count : 0);
+
+    jint i;
+    for (i=0; i<count && !exception; i++) {
+        JSValueRef value = JSObjectGetPropertyAtIndex((JSContextRef)ctx, (JSObjectRef)object,
+                (unsigned)(offset + i), &exception);
+        if (exception) break;
+        switch (kind) {
+            case KIND_DOUBLE:
+            case KIND_INT:
+                numbers[i] = JSValueToNumber((JSContextRef)ctx, value, &exception);
+                break;
+            case KIND_BOOLEAN:
+                booleans[i] = (jboolean) JSValueToBoolean((JSContextRef)ctx, value);
+                break;
+            case KIND_STRING: {
+                jstring string = JSConvert::ToJavaString(env, (JSContextRef)ctx, value,
+                        &exception);
+                env->SetObjectArrayElement((jobjectArray)dst, i, string);
+                env->DeleteLocalRef(string);
+            } break;
+            case KIND_VALUE:
+                JSValueProtect((JSContextRef)ctx, value);
+                refs[i] = (jlong) value;
+                break;
+            default:
+                break;
+        }
+    }
+
+    switch (kind) {
+        case KIND_DOUBLE:
+            env->SetDoubleArrayRegion((jdoubleArray)dst, 0, i, numbers.data());
+            break;
+        case KIND_INT: {
+            std::vector<jint> ints((size_t)i);
+            for (jint j=0; j<i; j++) ints[j] = JSConvert::ToInt(numbers[j]);
+            env->SetIntArrayRegion((jintArray)dst, 0, i, ints.data());
+        } break;
+        case KIND_BOOLEAN:
+            env->SetBooleanArrayRegion((jbooleanArray)dst, 0, i, booleans.data());
+            break;
+        case KIND_VALUE:
+            env->SetLongArrayRegion((jlongArray)dst, 0, i, refs.data());
+            break;
+        default:
+            break;
+    }
+    env->SetLongField( out, fidReturnException, (long) exception);
+}
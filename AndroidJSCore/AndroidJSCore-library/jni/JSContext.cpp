@@ -115,17 +115,11 @@ NATIVE(JSContext,jlong,getGroup) (PARAMS, jlong ctx) {
     return (long)group;
 }
 
-NATIVE(JSContext,jobject,evaluateScript) (PARAMS, jlong ctx, jlong script,
-    jlong thisObject, jlong sourceURL, int startingLineNumber) {
+NATIVE(JSContext,void,evaluateScript) (PARAMS, jlong ctx, jlong script,
+    jlong thisObject, jlong sourceURL, int startingLineNumber, jobject out) {
 
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSValueRef value = JSEvaluateScript(
         (JSContextRef)ctx,
         (JSStringRef)script,
@@ -135,36 +129,23 @@ NATIVE(JSContext,jobject,evaluateScript) (PARAMS, jlong ctx, jlong script,
         &exception);
     JSValueProtect((JSContextRef)ctx, value);
 
-    env->SetLongField( out, fid, (long)value);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (jlong) exception);
-
-    return out;
+    env->SetLongField( out, fidReturnReference, (long)value);
+    env->SetLongField( out, fidReturnException, (jlong) exception);
 }
 
-NATIVE(JSContext,jobject,checkScriptSyntax) (PARAMS, jlong ctx, jlong script,
-        jlong sourceURL, jint startingLineNumber) {
+NATIVE(JSContext,void,checkScriptSyntax) (PARAMS, jlong ctx, jlong script,
+        jlong sourceURL, jint startingLineNumber, jobject out) {
 
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
     bool value = JSCheckScriptSyntax(
         (JSContextRef)ctx,
         (JSStringRef)script,
         (JSStringRef)sourceURL,
         startingLineNumber,
         &exception);
-    env->SetBooleanField( out, fid, value );
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (jlong) exception);
-
-    return out;
+    env->SetBooleanField( out, fidReturnBool, value );
+    env->SetLongField( out, fidReturnException, (jlong) exception);
 }
 
 NATIVE(JSContext,void,garbageCollect) (PARAMS, jlong ctx) {
@@ -0,0 +1,293 @@
+//
+// JSConvert.cpp
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+#include "JSConvert.h"
+
+#include <stdlib.h>
+
+jclass JSConvert::stringClass = NULL;
+jclass JSConvert::booleanClass = NULL;
+jclass JSConvert::doubleClass = NULL;
+jclass JSConvert::integerClass = NULL;
+jclass JSConvert::longClass = NULL;
+jclass JSConvert::shortClass = NULL;
+jclass JSConvert::byteClass = NULL;
+jclass JSConvert::floatClass = NULL;
+jclass JSConvert::mapClass = NULL;
+jclass JSConvert::listClass = NULL;
+jclass JSConvert::objectArrayClass = NULL;
+jclass JSConvert::jsValueClass = NULL;
+jmethodID JSConvert::booleanValueMethod = NULL;
+jmethodID JSConvert::doubleValueMethod = NULL;
+jmethodID JSConvert::longValueMethod = NULL;
+jmethodID JSConvert::toStringMethod = NULL;
+jmethodID JSConvert::entrySetMethod = NULL;
+jmethodID JSConvert::iteratorMethod = NULL;
+jmethodID JSConvert::hasNextMethod = NULL;
+jmethodID JSConvert::nextMethod = NULL;
+jmethodID JSConvert::getKeyMethod = NULL;
+jmethodID JSConvert::getValueMethod = NULL;
+jfieldID JSConvert::valueRefField = NULL;
+jfieldID JSConvert::immediateField = NULL;
+jfieldID JSConvert::immediateValueField = NULL;
+jfieldID JSConvert::typeField = NULL;
+
+static jclass GlobalClass(JNIEnv *env, const char *name) {
+    jclass local = env->FindClass(name);
+    if (local == NULL) return NULL;
+    jclass global = (jclass) env->NewGlobalRef(local);
+    env->DeleteLocalRef(local);
+    return global;
+}
+
+bool JSConvert::OnLoad(JNIEnv *env)
+{
+    stringClass  = GlobalClass(env, "java/lang/String");
+    booleanClass = GlobalClass(env, "java/lang/Boolean");
+    doubleClass  = GlobalClass(env, "java/lang/Double");
+    integerClass = GlobalClass(env, "java/lang/Integer");
+    longClass    = GlobalClass(env, "java/lang/Long");
+    shortClass   = GlobalClass(env, "java/lang/Short");
+    byteClass    = GlobalClass(env, "java/lang/Byte");
+    floatClass   = GlobalClass(env, "java/lang/Float");
+    mapClass     = GlobalClass(env, "java/util/Map");
+    listClass    = GlobalClass(env, "java/util/List");
+    objectArrayClass = GlobalClass(env, "[Ljava/lang/Object;");
+    jsValueClass = GlobalClass(env, "org/liquidplayer/webkit/javascriptcore/JSValue");
+    if (env->ExceptionCheck()) return false;
+
+    booleanValueMethod = env->GetMethodID(booleanClass, "booleanValue", "()Z");
+    longValueMethod = env->GetMethodID(longClass, "longValue", "()J");
+    jclass number = env->FindClass("java/lang/Number");
+    if (number == NULL) return false;
+    doubleValueMethod = env->GetMethodID(number, "doubleValue", "()D");
+    env->DeleteLocalRef(number);
+
+    jclass object = env->FindClass("java/lang/Object");
+    if (object == NULL) return false;
+    toStringMethod = env->GetMethodID(object, "toString", "()Ljava/lang/String;");
+    env->DeleteLocalRef(object);
+
+    jclass iterable = env->FindClass("java/lang/Iterable");
+    jclass iterator = env->FindClass("java/util/Iterator");
+    jclass entry = env->FindClass("java/util/Map$Entry");
+    if (iterable == NULL || iterator == NULL || entry == NULL) return false;
+    entrySetMethod = env->GetMethodID(mapClass, "entrySet", "()Ljava/util/Set;");
+    iteratorMethod = env->GetMethodID(iterable, "iterator", "()Ljava/util/Iterator;");
+    hasNextMethod  = env->GetMethodID(iterator, "hasNext", "()Z");
+    nextMethod     = env->GetMethodID(iterator, "next", "()Ljava/lang/Object;");
+    getKeyMethod   = env->GetMethodID(entry, "getKey", "()Ljava/lang/Object;");
+    getValueMethod = env->GetMethodID(entry, "getValue", "()Ljava/lang/Object;");
+    env->DeleteLocalRef(iterable);
+    env->DeleteLocalRef(iterator);
+    env->DeleteLocalRef(entry);
+
+    valueRefField = env->GetFieldID(jsValueClass, "valueRef", "Ljava/lang/Long;");
+    immediateField = env->GetFieldID(jsValueClass, "immediate", "Z");
+    immediateValueField = env->GetFieldID(jsValueClass, "immediateValue", "D");
+    typeField = env->GetFieldID(jsValueClass, "type", "I");
+
+    return !env->ExceptionCheck();
+}
+
+JSValueRef JSConvert::ToJSValue(JNIEnv *env, JSContextRef ctx, jobject object)
+{
+    if (object == NULL) {
+        return JSValueMakeNull(ctx);
+    } else if (env->IsInstanceOf(object, stringClass)) {
+        JSStringRef string = ToJSString(env, (jstring)object);
+        JSValueRef value = JSValueMakeString(ctx, string);
+        JSStringRelease(string);
+        return value;
+    } else if (env->IsInstanceOf(object, booleanClass)) {
+        return JSValueMakeBoolean(ctx, env->CallBooleanMethod(object, booleanValueMethod));
+    } else if (env->IsInstanceOf(object, doubleClass) ||
+            env->IsInstanceOf(object, integerClass) ||
+            env->IsInstanceOf(object, longClass) ||
+            env->IsInstanceOf(object, shortClass) ||
+            env->IsInstanceOf(object, byteClass)) {
+        return JSValueMakeNumber(ctx, env->CallDoubleMethod(object, doubleValueMethod));
+    }
+    return NULL;
+}
+
+JSStringRef JSConvert::ToJSString(JNIEnv *env, jstring string)
+{
+    const jchar *chars = env->GetStringChars(string, NULL);
+    JSStringRef ret = JSStringCreateWithCharacters(chars, (size_t)env->GetStringLength(string));
+    env->ReleaseStringChars(string, chars);
+    return ret;
+}
+
+JSValueRef JSConvert::ToJSValueDeep(JNIEnv *env, JSContextRef ctx, jobject object,
+        int maxDepth, JSValueRef *exception)
+{
+    return ToJSValueDeep(env, ctx, object, maxDepth, NULL, exception);
+}
+
+/* The JavaScript objects under construction are only ever held in locals and in the
+ * stack-allocated Ancestor chain, where JavaScriptCore's conservative stack scan keeps them
+ * alive until they are attached to their parents. */
+JSValueRef JSConvert::ToJSValueDeep(JNIEnv *env, JSContextRef ctx, jobject object,
+        int depth, const Ancestor *ancestors, JSValueRef *exception)
+{
+    JSValueRef simple = ToJSValue(env, ctx, object);
+    if (simple != NULL) {
+        return simple;
+    } else if (env->IsInstanceOf(object, floatClass)) {
+        // As JSValue(JSContext, Object) does, go through the decimal representation so that
+        // 1.1f becomes 1.1 rather than 1.100000023841858
+        jstring string = (jstring) env->CallObjectMethod(object, toStringMethod);
+        const char *chars = env->GetStringUTFChars(string, NULL);
+        double number = strtod(chars, NULL);
+        env->ReleaseStringUTFChars(string, chars);
+        env->DeleteLocalRef(string);
+        return JSValueMakeNumber(ctx, number);
+    } else if (env->IsInstanceOf(object, jsValueClass)) {
+        // Immediate values hold no reference; the flag is read first, as it is set last
+        if (env->GetBooleanField(object, immediateField)) {
+            double value = env->GetDoubleField(object, immediateValueField);
+            switch (env->GetIntField(object, typeField)) {
+                case kJSTypeNumber:  return JSValueMakeNumber(ctx, value);
+                case kJSTypeBoolean: return JSValueMakeBoolean(ctx, value != 0);
+                case kJSTypeNull:    return JSValueMakeNull(ctx);
+                default:             return JSValueMakeUndefined(ctx);
+            }
+        }
+        jobject ref = env->GetObjectField(object, valueRefField);
+        JSValueRef value = (JSValueRef) env->CallLongMethod(ref, longValueMethod);
+        env->DeleteLocalRef(ref);
+        return value;
+    }
+
+    bool isMap = env->IsInstanceOf(object, mapClass);
+    bool isList = !isMap && env->IsInstanceOf(object, listClass);
+    bool isArray = !isMap && !isList && env->IsInstanceOf(object, objectArrayClass);
+    if (!isMap && !isList && !isArray) {
+        return JSValueMakeUndefined(ctx);
+    }
+
+    for (const Ancestor *ancestor = ancestors; ancestor; ancestor = ancestor->parent) {
+        if (env->IsSameObject(ancestor->object, object)) {
+            return ancestor->value;
+        }
+    }
+    if (depth <= 0) {
+        JSStringRef message = JSStringCreateWithUTF8CString("Maximum conversion depth exceeded");
+        JSValueRef args[] = { JSValueMakeString(ctx, message) };
+        JSStringRelease(message);
+        JSObjectRef global = JSContextGetGlobalObject(ctx);
+        JSStringRef name = JSStringCreateWithUTF8CString("RangeError");
+        JSValueRef rangeError = JSObjectGetProperty(ctx, global, name, NULL);
+        JSStringRelease(name);
+        *exception = JSObjectCallAsConstructor(ctx, (JSObjectRef)rangeError, 1, args, NULL);
+        return NULL;
+    }
+
+    Ancestor self;
+    self.object = object;
+    self.value = isMap ? JSObjectMake(ctx, NULL, NULL) : JSObjectMakeArray(ctx, 0, NULL, NULL);
+    self.parent = ancestors;
+
+    if (isArray) {
+        jsize length = env->GetArrayLength((jobjectArray)object);
+        for (jsize i=0; i<length; i++) {
+            jobject element = env->GetObjectArrayElement((jobjectArray)object, i);
+            JSValueRef value = ToJSValueDeep(env, ctx, element, depth-1, &self, exception);
+            env->DeleteLocalRef(element);
+            if (value == NULL) return NULL;
+            JSObjectSetPropertyAtIndex(ctx, self.value, (unsigned)i, value, NULL);
+        }
+        return self.value;
+    }
+
+    jobject iterable = isMap ? env->CallObjectMethod(object, entrySetMethod) : object;
+    jobject iterator = env->ExceptionCheck() ? NULL :
+            env->CallObjectMethod(iterable, iteratorMethod);
+    if (isMap && iterable) env->DeleteLocalRef(iterable);
+    if (env->ExceptionCheck()) return NULL;
+
+    unsigned index = 0;
+    JSValueRef ret = self.value;
+    while (env->CallBooleanMethod(iterator, hasNextMethod)) {
+        jobject next = env->CallObjectMethod(iterator, nextMethod);
+        if (env->ExceptionCheck()) { ret = NULL; break; }
+        if (isMap) {
+            jobject key = env->CallObjectMethod(next, getKeyMethod);
+            jobject value = env->CallObjectMethod(next, getValueMethod);
+            jstring keyString = (key == NULL) ? NULL :
+                    (jstring) env->CallObjectMethod(key, toStringMethod);
+            JSValueRef js = ToJSValueDeep(env, ctx, value, depth-1, &self, exception);
+            if (js != NULL) {
+                JSStringRef name = (keyString == NULL) ?
+                        JSStringCreateWithUTF8CString("null") : ToJSString(env, keyString);
+                JSObjectSetProperty(ctx, self.value, name, js, kJSPropertyAttributeNone, NULL);
+                JSStringRelease(name);
+            }
+            if (keyString) env->DeleteLocalRef(keyString);
+            if (key) env->DeleteLocalRef(key);
+            if (value) env->DeleteLocalRef(value);
+            if (js == NULL) ret = NULL;
+        } else {
+            JSValueRef js = ToJSValueDeep(env, ctx, next, depth-1, &self, exception);
+            if (js != NULL) {
+                JSObjectSetPropertyAtIndex(ctx, self.value, index++, js, NULL);
+            } else {
+                ret = NULL;
+            }
+        }
+        if (next) env->DeleteLocalRef(next);
+        if (ret == NULL) break;
+    }
+    env->DeleteLocalRef(iterator);
+    return env->ExceptionCheck() ? NULL : ret;
+}
+
+jstring JSConvert::ToJavaString(JNIEnv *env, JSContextRef ctx, JSValueRef value,
+        JSValueRef *exception)
+{
+    JSStringRef string = JSValueToStringCopy(ctx, value, exception);
+    if (string == NULL) return NULL;
+    jstring result = env->NewString(JSStringGetCharactersPtr(string),
+            (jsize)JSStringGetLength(string));
+    JSStringRelease(string);
+    return result;
+}
+
+jint JSConvert::ToInt(double number)
+{
+    if (number != number) return 0;
+    if (number >= 2147483647.0) return 2147483647;
+    if (number <= -2147483648.0) return (jint) -2147483648LL;
+    return (jint) number;
+}
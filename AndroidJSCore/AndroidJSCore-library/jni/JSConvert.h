@@ -0,0 +1,103 @@
+//
+// JSConvert.h
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+#ifndef ANDROIDJSCORE_JSCONVERT_H
+#define ANDROIDJSCORE_JSCONVERT_H
+
+#include "JSJNI.h"
+
+/* Conversions between simple Java values and JavaScript values, done natively so that whole
+ * collections can be converted in a single JNI call */
+class JSConvert {
+    public:
+        static bool OnLoad(JNIEnv *env);
+
+        /* Converts null, String, Boolean, Double, Integer, Long, Short or Byte as
+         * JSValue(JSContext, Object) would.  Returns NULL for any other type, which the caller
+         * must convert some other way. */
+        static JSValueRef ToJSValue(JNIEnv *env, JSContextRef ctx, jobject object);
+
+        /* Converts 'value' to a Java string as JSValue.toString() would */
+        static jstring ToJavaString(JNIEnv *env, JSContextRef ctx, JSValueRef value,
+                JSValueRef *exception);
+
+        /* Converts as a Java (int) cast of the value's number would */
+        static jint ToInt(double number);
+
+        /* Converts a whole graph of Maps, Lists, Object[]s and the simple values above, as
+         * JSValue(JSContext, Object) would.  A container that refers back to one of its
+         * ancestors becomes a reference to that ancestor's JavaScript object.  Containers
+         * nested more than 'maxDepth' deep raise a RangeError in 'exception'.  Any other
+         * Java object becomes undefined.  Returns NULL if a Java exception is pending. */
+        static JSValueRef ToJSValueDeep(JNIEnv *env, JSContextRef ctx, jobject object,
+                int maxDepth, JSValueRef *exception);
+
+    private:
+        struct Ancestor {
+            jobject object;
+            JSObjectRef value;
+            const Ancestor *parent;
+        };
+        static JSValueRef ToJSValueDeep(JNIEnv *env, JSContextRef ctx, jobject object,
+                int depth, const Ancestor *ancestors, JSValueRef *exception);
+        static JSStringRef ToJSString(JNIEnv *env, jstring string);
+
+        static jclass stringClass;
+        static jclass booleanClass;
+        static jclass doubleClass;
+        static jclass integerClass;
+        static jclass longClass;
+        static jclass shortClass;
+        static jclass byteClass;
+        static jclass floatClass;
+        static jclass mapClass;
+        static jclass listClass;
+        static jclass objectArrayClass;
+        static jclass jsValueClass;
+        static jmethodID booleanValueMethod;
+        static jmethodID doubleValueMethod;
+        static jmethodID longValueMethod;
+        static jmethodID toStringMethod;
+        static jmethodID entrySetMethod;
+        static jmethodID iteratorMethod;
+        static jmethodID hasNextMethod;
+        static jmethodID nextMethod;
+        static jmethodID getKeyMethod;
+        static jmethodID getValueMethod;
+        static jfieldID valueRefField;
+        static jfieldID immediateField;
+        static jfieldID immediateValueField;
+        static jfieldID typeField;
+};
+
+#endif //ANDROIDJSCORE_JSCONVERT_H
@@ -33,22 +33,104 @@
 
 #include "JSFunction.h"
 
-JSClassDefinition JSFunction::JSFunctionClassDefinition() {
+JSClassRef JSFunction::JSFunctionClass() {
+    static JSClassRef classRef = CreateFunctionClass();
+    return classRef;
+}
+
+JSClassRef JSFunction::CreateFunctionClass() {
     JSClassDefinition definition = kJSClassDefinitionEmpty;
     definition.callAsFunction = StaticFunctionCallback;
     definition.callAsConstructor = StaticConstructorCallback;
     definition.hasInstance = StaticHasInstanceCallback;
-    return definition;
+    return CreateClass(definition);
 }
 
 JSFunction::JSFunction(JNIEnv* env, jobject thiz, JSContextRef ctx, JSStringRef name)
-    : Instance(env, thiz, ctx, JSFunctionClassDefinition(), name)
+    : Instance(env, thiz, ctx, JSFunctionClass(), name)
 {
 }
 
 JSFunction::~JSFunction() {
 }
 
+jmethodID JSFunction::functionCallbackMethod;
+jmethodID JSFunction::constructorCallbackMethod;
+jmethodID JSFunction::hasInstanceCallbackMethod;
+pthread_key_t JSFunction::argumentsKey;
+
+/* The callbacks are private to org.liquidplayer.webkit.javascriptcore.JSFunction, so
+ * subclasses cannot override them and the IDs can be resolved once on the base class. */
+bool JSFunction::OnLoad(JNIEnv *env)
+{
+    jclass cls = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSFunction");
+    if (cls == NULL) return false;
+    functionCallbackMethod = env->GetMethodID(cls,"functionCallback","(JJJ[JJ)J");
+    constructorCallbackMethod = env->GetMethodID(cls,"constructorCallback","(JJ[JJ)J");
+    hasInstanceCallbackMethod = env->GetMethodID(cls,"hasInstanceCallback","(JJJJ)Z");
+    env->DeleteLocalRef(cls);
+    if (env->ExceptionCheck()) return false;
+
+    return pthread_key_create(&argumentsKey, StaticThreadExit) == 0;
+}
+
+/* Argument arrays for the common small argument counts are kept per thread and reused
+ * for every callback.  The Java callbacks copy the references out before doing anything
+ * that could re-enter, so a nested callback on the same thread may safely reuse them. */
+#define CACHED_ARGUMENT_ARRAYS 8
+
+jlongArray JSFunction::ArgumentsArray(JNIEnv *env, size_t argumentCount,
+        const JSValueRef arguments[])
+{
+    jlongArray argsArr;
+    if (argumentCount < CACHED_ARGUMENT_ARRAYS) {
+        jlongArray *arrays = (jlongArray *) pthread_getspecific(argumentsKey);
+        if (arrays == NULL) {
+            arrays = (jlongArray *) calloc(CACHED_ARGUMENT_ARRAYS, sizeof(jlongArray));
+            pthread_setspecific(argumentsKey, arrays);
+        }
+        if (arrays[argumentCount] == NULL) {
+            jlongArray local = env->NewLongArray(argumentCount);
+            arrays[argumentCount] = (jlongArray) env->NewGlobalRef(local);
+            env->DeleteLocalRef(local);
+        }
+        argsArr = arrays[argumentCount];
+    } else {
+        argsArr = env->NewLongArray(argumentCount);
+    }
+
+    if (argumentCount > 0) {
+        jlong *args = (jlong *) env->GetPrimitiveArrayCritical(argsArr, NULL);
+        for (size_t i=0; i<argumentCount; i++) {
+            args[i] = (long) arguments[i];
+        }
+        env->ReleasePrimitiveArrayCritical(argsArr, args, 0);
+    }
+    return argsArr;
+}
+
+void JSFunction::ReleaseArgumentsArray(JNIEnv *env, size_t argumentCount, jlongArray argsArr)
+{
+    if (argumentCount >= CACHED_ARGUMENT_ARRAYS) {
+        env->DeleteLocalRef(argsArr);
+    }
+}
+
+void JSFunction::StaticThreadExit(void *arrays)
+{
+    // Never attach a thread while it is exiting.  If it has already been detached, the
+    // arrays' global references can no longer be deleted, and are leaked (a few small arrays
+    // per thread, and only when the detach destructor happened to run first).
+    JNIEnv *env;
+    if (javaVM->GetEnv((void**)&env, JNI_VERSION_1_6) == JNI_OK) {
+        for (int i=0; i<CACHED_ARGUMENT_ARRAYS; i++) {
+            jlongArray argsArr = ((jlongArray *) arrays)[i];
+            if (argsArr != NULL) env->DeleteGlobalRef(argsArr);
+        }
+    }
+    free(arrays);
+}
+
 JSValueRef JSFunction::StaticFunctionCallback(JSContextRef ctx, JSObjectRef function, JSObjectRef thisObject,
         size_t argumentCount, const JSValueRef arguments[], JSValueRef* exception)
 {
@@ -85,126 +167,37 @@ bool JSFunction::StaticHasInstanceCallback(JSContextRef ctx, JSObjectRef constru
 JSValueRef JSFunction::FunctionCallback(JSContextRef ctx, JSObjectRef function, JSObjectRef thisObject,
         size_t argumentCount, const JSValueRef arguments[], JSValueRef* exception)
 {
-    JNIEnv *env;
-    int getEnvStat = jvm->GetEnv((void**)&env, JNI_VERSION_1_6);
-    if (getEnvStat == JNI_EDETACHED) {
-        jvm->AttachCurrentThread(&env, NULL);
-    }
+    JNIEnv *env = getJNIEnv();
 
-    jclass cls = env->GetObjectClass(thiz);
-    jmethodID mid;
-    do {
-        mid = env->GetMethodID(cls,"functionCallback","(JJJ[JJ)J");
-        if (!env->ExceptionCheck()) break;
-        env->ExceptionClear();
-        jclass super = env->GetSuperclass(cls);
-        env->DeleteLocalRef(cls);
-        if (super == NULL || env->ExceptionCheck()) {
-            if (super != NULL) env->DeleteLocalRef(super);
-            if (getEnvStat == JNI_EDETACHED) {
-                jvm->DetachCurrentThread();
-            }
-            return NULL;
-        }
-        cls = super;
-    } while (true);
-    env->DeleteLocalRef(cls);
-    jlongArray argsArr = env->NewLongArray(argumentCount);
-    jlong* args = new jlong[argumentCount];
-    for (size_t i=0; i<argumentCount; i++) {
-        args[i] = (long) arguments[i];
-    }
-    env->SetLongArrayRegion(argsArr,0,argumentCount,args);
+    jlongArray argsArr = ArgumentsArray(env, argumentCount, arguments);
 
-    long objret = env->CallLongMethod(thiz, mid, (jlong)ctx, (jlong)function, (jlong)thisObject,
-            argsArr, (jlong)exception);
+    long objret = env->CallLongMethod(thiz, functionCallbackMethod, (jlong)ctx, (jlong)function,
+            (jlong)thisObject, argsArr, (jlong)exception);
 
-    delete args;
-    env->DeleteLocalRef(argsArr);
-
-    if (getEnvStat == JNI_EDETACHED) {
-        jvm->DetachCurrentThread();
-    }
+    ReleaseArgumentsArray(env, argumentCount, argsArr);
     return (JSObjectRef)objret;
 }
 
 JSObjectRef JSFunction::ConstructorCallback(JSContextRef ctx, JSObjectRef constructor,
         size_t argumentCount, const JSValueRef arguments[], JSValueRef* exception)
 {
-    JNIEnv *env;
-    int getEnvStat = jvm->GetEnv((void**)&env, JNI_VERSION_1_6);
-    if (getEnvStat == JNI_EDETACHED) {
-        jvm->AttachCurrentThread(&env, NULL);
-    }
-    jclass cls = env->GetObjectClass(thiz);
-    jmethodID mid;
-    do {
-        mid = env->GetMethodID(cls,"constructorCallback","(JJ[JJ)J");
-        if (!env->ExceptionCheck()) break;
-        env->ExceptionClear();
-        jclass super = env->GetSuperclass(cls);
-        env->DeleteLocalRef(cls);
-        if (super == NULL || env->ExceptionCheck()) {
-            if (super != NULL) env->DeleteLocalRef(super);
-            if (getEnvStat == JNI_EDETACHED) {
-                jvm->DetachCurrentThread();
-            }
-            return NULL;
-        }
-        cls = super;
-    } while (true);
-    env->DeleteLocalRef(cls);
-    jlongArray argsArr = env->NewLongArray(argumentCount);
-    jlong* args = new jlong[argumentCount];
-    for (size_t i=0; i<argumentCount; i++) {
-        args[i] = (long) arguments[i];
-    }
-    env->SetLongArrayRegion(argsArr,0,argumentCount,args);
+    JNIEnv *env = getJNIEnv();
 
-    long objret = env->CallLongMethod(thiz, mid, (jlong)ctx, (jlong)constructor,
-            argsArr, (jlong)exception);
+    jlongArray argsArr = ArgumentsArray(env, argumentCount, arguments);
 
-    delete args;
-    env->DeleteLocalRef(argsArr);
+    long objret = env->CallLongMethod(thiz, constructorCallbackMethod, (jlong)ctx,
+            (jlong)constructor, argsArr, (jlong)exception);
 
-    if (getEnvStat == JNI_EDETACHED) {
-        jvm->DetachCurrentThread();
-    }
+    ReleaseArgumentsArray(env, argumentCount, argsArr);
     return (JSObjectRef)objret;
 }
 
 bool JSFunction::HasInstanceCallback(JSContextRef ctx, JSObjectRef constructor,
         JSValueRef possibleInstance, JSValueRef* exception)
 {
-    JNIEnv *env;
-    int getEnvStat = jvm->GetEnv((void**)&env, JNI_VERSION_1_6);
-    if (getEnvStat == JNI_EDETACHED) {
-        jvm->AttachCurrentThread(&env, NULL);
-    }
-    jclass cls = env->GetObjectClass(thiz);
-    jmethodID mid;
-    do {
-        mid = env->GetMethodID(cls,"hasInstanceCallback","(JJJJ)Z");
-        if (!env->ExceptionCheck()) break;
-        env->ExceptionClear();
-        jclass super = env->GetSuperclass(cls);
-        env->DeleteLocalRef(cls);
-        if (super == NULL || env->ExceptionCheck()) {
-            if (super != NULL) env->DeleteLocalRef(super);
-            if (getEnvStat == JNI_EDETACHED) {
-                jvm->DetachCurrentThread();
-            }
-            return NULL;
-        }
-        cls = super;
-    } while (true);
-    env->DeleteLocalRef(cls);
+    JNIEnv *env = getJNIEnv();
 
-    bool ret = env->CallBooleanMethod(thiz, mid, (jlong)ctx, (jlong)constructor,
-            (jlong)possibleInstance, (jlong)exception);
-
-    if (getEnvStat == JNI_EDETACHED) {
-        jvm->DetachCurrentThread();
-    }
+    bool ret = env->CallBooleanMethod(thiz, hasInstanceCallbackMethod, (jlong)ctx,
+            (jlong)constructor, (jlong)possibleInstance, (jlong)exception);
     return ret;
 }
@@ -35,12 +35,15 @@
 #define ANDROIDJSCORE_JSFUNCTION_H
 
 #include "Instance.h"
+#include <pthread.h>
 
 class JSFunction : public Instance {
     public:
         JSFunction(JNIEnv *env, jobject thiz, JSContextRef ctx, JSStringRef name = NULL);
         virtual ~JSFunction();
 
+        static bool OnLoad(JNIEnv *env);
+
     private:
         static JSValueRef StaticFunctionCallback(JSContextRef ctx, JSObjectRef function,
                 JSObjectRef thisObject,size_t argumentCount, const JSValueRef arguments[],
@@ -50,7 +53,8 @@ class JSFunction : public Instance {
                 JSValueRef* exception);
         static bool StaticHasInstanceCallback(JSContextRef ctx, JSObjectRef constructor,
                 JSValueRef possibleInstance, JSValueRef* exception);
-        static JSClassDefinition JSFunctionClassDefinition();
+        static JSClassRef JSFunctionClass();
+        static JSClassRef CreateFunctionClass();
 
         JSObjectRef ConstructorCallback(JSContextRef ctx, JSObjectRef constructor,
                 size_t argumentCount, const JSValueRef arguments[], JSValueRef* exception);
@@ -59,6 +63,17 @@ class JSFunction : public Instance {
                 JSValueRef* exception);
         bool HasInstanceCallback(JSContextRef ctx, JSObjectRef constructor,
                 JSValueRef possibleInstance, JSValueRef* exception);
+
+        static jlongArray ArgumentsArray(JNIEnv *env, size_t argumentCount,
+                const JSValueRef arguments[]);
+        static void ReleaseArgumentsArray(JNIEnv *env, size_t argumentCount, jlongArray argsArr);
+        static void StaticThreadExit(void *arrays);
+
+        static jmethodID functionCallbackMethod;
+        static jmethodID constructorCallbackMethod;
+        static jmethodID hasInstanceCallbackMethod;
+
+        static pthread_key_t argumentsKey;
 };
 
 #endif //ANDROIDJSCORE_JSFUNCTION_H
@@ -0,0 +1,96 @@
+//
+// JSJNI.cpp
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+#include "JSJNI.h"
+#include "JSFunction.h"
+#include "JSConvert.h"
+#include <pthread.h>
+#include <atomic>
+
+jfieldID fidReturnBool;
+jfieldID fidReturnNumber;
+jfieldID fidReturnReference;
+jfieldID fidReturnException;
+
+JavaVM *javaVM;
+
+static pthread_key_t attachedKey;
+static std::atomic<jlong> attachCount(0);
+
+static void DetachThread(__attribute__((unused)) void *env) {
+    javaVM->DetachCurrentThread();
+}
+
+JNIEnv *getJNIEnv() {
+    JNIEnv *env;
+    if (javaVM->GetEnv((void**)&env, JNI_VERSION_1_6) == JNI_EDETACHED) {
+        javaVM->AttachCurrentThread(&env, NULL);
+        pthread_setspecific(attachedKey, env);
+        attachCount++;
+    }
+    return env;
+}
+
+NATIVE(JSContext,jlong,getAttachCount) (PARAMS) {
+    return attachCount;
+}
+
+extern "C" jint JNI_OnLoad(JavaVM *vm, __attribute__((unused)) void *reserved) {
+    JNIEnv *env;
+    if (vm->GetEnv((void**)&env, JNI_VERSION_1_6) != JNI_OK) {
+        return -1;
+    }
+    javaVM = vm;
+    if (pthread_key_create(&attachedKey, DetachThread) != 0) {
+        return -1;
+    }
+
+    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
+    if (ret == NULL) {
+        return -1;
+    }
+    fidReturnBool      = env->GetFieldID(ret, "bool", "Z");
+    fidReturnNumber    = env->GetFieldID(ret, "number", "D");
+    fidReturnReference = env->GetFieldID(ret, "reference", "J");
+    fidReturnException = env->GetFieldID(ret, "exception", "J");
+    env->DeleteLocalRef(ret);
+
+    if (!JSFunction::OnLoad(env)) {
+        return -1;
+    }
+    if (!JSConvert::OnLoad(env)) {
+        return -1;
+    }
+
+    return JNI_VERSION_1_6;
+}
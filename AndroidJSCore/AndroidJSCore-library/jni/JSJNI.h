@@ -41,3 +41,19 @@
     rt Java_org_liquidplayer_webkit_javascriptcore_##package##_##f
 #define PARAMS __attribute__((unused))JNIEnv* env, __attribute__((unused))jobject thiz
 
+
+/* Field IDs of JSValue$JNIReturnObject, resolved once in JNI_OnLoad.  Natives
+ * that return a reference/exception pair fill in a caller-supplied object using
+ * these instead of allocating a new one on every call. */
+extern jfieldID fidReturnBool;
+extern jfieldID fidReturnNumber;
+extern jfieldID fidReturnReference;
+extern jfieldID fidReturnException;
+
+/* The Java VM, set once in JNI_OnLoad */
+extern JavaVM *javaVM;
+
+/* Returns the JNIEnv for the calling thread.  A native thread (e.g. a JavaScriptCore
+ * GC thread) is attached on first use and stays attached until it exits, at which
+ * point a pthread key destructor detaches it. */
+JNIEnv *getJNIEnv();
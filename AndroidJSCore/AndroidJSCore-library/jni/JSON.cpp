@@ -0,0 +1,111 @@
+//
+// JSON.cpp
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+#include "JSJNI.h"
+
+#include <stdlib.h>
+#include <string.h>
+
+/*
+ * JavaScriptCore can only parse JSON from a complete string, so streamed documents are
+ * accumulated here, outside of the Java heap, and handed over in one piece
+ */
+struct JSONBuffer {
+    char *data;
+    size_t length;
+    size_t capacity;
+};
+
+static bool reserve(JSONBuffer *buffer, size_t count) {
+    if (buffer->length + count <= buffer->capacity) return true;
+    size_t capacity = buffer->capacity ? buffer->capacity : 65536;
+    while (capacity < buffer->length + count) capacity *= 2;
+    char *data = (char *) realloc(buffer->data, capacity);
+    if (!data) return false;
+    buffer->data = data;
+    buffer->capacity = capacity;
+    return true;
+}
+
+NATIVE(JSON,jlong,createBuffer) (PARAMS) {
+    JSONBuffer *buffer = new JSONBuffer();
+    buffer->data = NULL;
+    buffer->length = buffer->capacity = 0;
+    return (jlong) buffer;
+}
+
+NATIVE(JSON,jboolean,appendChars) (PARAMS, jlong bufferRef, jcharArray chars, jint count) {
+    JSONBuffer *buffer = (JSONBuffer *) bufferRef;
+    if (!reserve(buffer, (size_t)count * sizeof(jchar))) return false;
+    env->GetCharArrayRegion(chars, 0, count, (jchar *)(buffer->data + buffer->length));
+    buffer->length += (size_t)count * sizeof(jchar);
+    return true;
+}
+
+NATIVE(JSON,jboolean,appendBytes) (PARAMS, jlong bufferRef, jobject bytes, jint count) {
+    JSONBuffer *buffer = (JSONBuffer *) bufferRef;
+    if (!reserve(buffer, (size_t)count)) return false;
+    memcpy(buffer->data + buffer->length, env->GetDirectBufferAddress(bytes), (size_t)count);
+    buffer->length += (size_t)count;
+    return true;
+}
+
+/* Returns 0 if the buffer could not be terminated, which the caller reports as out of memory */
+NATIVE(JSON,jlong,parseBuffer) (PARAMS, jlong ctx, jlong bufferRef, jboolean utf8) {
+    JSONBuffer *buffer = (JSONBuffer *) bufferRef;
+    JSStringRef string;
+    if (utf8) {
+        if (!reserve(buffer, 1)) return 0;
+        buffer->data[buffer->length] = 0;
+        string = JSStringCreateWithUTF8CString(buffer->data);
+    } else {
+        string = JSStringCreateWithCharacters((const JSChar *) buffer->data,
+            buffer->length / sizeof(JSChar));
+    }
+    // The string holds its own copy, so let go of ours before parsing
+    free(buffer->data);
+    buffer->data = NULL;
+    buffer->length = buffer->capacity = 0;
+
+    JSValueRef value = JSValueMakeFromJSONString((JSContextRef) ctx, string);
+    JSStringRelease(string);
+    if (!value) value = JSValueMakeNull((JSContextRef) ctx);
+    JSValueProtect((JSContextRef) ctx, value);
+    return (jlong) value;
+}
+
+NATIVE(JSON,void,freeBuffer) (PARAMS, jlong bufferRef) {
+    JSONBuffer *buffer = (JSONBuffer *) bufferRef;
+    free(buffer->data);
+    delete buffer;
+}
@@ -52,7 +52,7 @@ NATIVE(JSObject,jlong,makeFunctionWithCallback) (PARAMS, jlong ctx, jlong name)
     return function->getObjRef();
 }
 
-NATIVE(JSObject,jobject,makeArray) (PARAMS, jlong ctx, jlongArray args) {
+NATIVE(JSObject,void,makeArray) (PARAMS, jlong ctx, jlongArray args, jobject out) {
     JSValueRef exception = NULL;
 
     int i;
@@ -64,26 +64,17 @@ NATIVE(JSObject,jobject,makeArray) (PARAMS, jlong ctx, jlongArray args) {
     }
     env->ReleaseLongArrayElements(args, values, 0);
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSObjectRef objRef = JSObjectMakeArray((JSContextRef)ctx, (size_t)len, (len==0)?NULL:elements,
             &exception);
     JSValueProtect((JSContextRef) ctx, objRef);
 
-    env->SetLongField( out, fid, (jlong)objRef );
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
+    env->SetLongField( out, fidReturnReference, (jlong)objRef );
+    env->SetLongField( out, fidReturnException, (long) exception);
 
     delete [] elements;
-    return out;
 }
 
-NATIVE(JSObject,jobject,makeDate) (PARAMS, jlong ctx, jlongArray args) {
+NATIVE(JSObject,void,makeDate) (PARAMS, jlong ctx, jlongArray args, jobject out) {
     JSValueRef exception = NULL;
 
     int i;
@@ -95,25 +86,16 @@ NATIVE(JSObject,jobject,makeDate) (PARAMS, jlong ctx, jlongArray args) {
     }
     env->ReleaseLongArrayElements(args, values, 0);
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSObjectRef objRef = JSObjectMakeDate((JSContextRef)ctx, (size_t)len, (len==0)?NULL:elements,
             &exception);
     JSValueProtect((JSContextRef) ctx, objRef);
-    env->SetLongField( out, fid, (jlong) objRef );
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
+    env->SetLongField( out, fidReturnReference, (jlong) objRef );
+    env->SetLongField( out, fidReturnException, (long) exception);
 
     delete [] elements;
-    return out;
 }
 
-NATIVE(JSObject,jobject,makeError) (PARAMS, jlong ctx, jlongArray args) {
+NATIVE(JSObject,void,makeError) (PARAMS, jlong ctx, jlongArray args, jobject out) {
     JSValueRef exception = NULL;
 
     int i;
@@ -125,25 +107,16 @@ NATIVE(JSObject,jobject,makeError) (PARAMS, jlong ctx, jlongArray args) {
     }
     env->ReleaseLongArrayElements(args, values, 0);
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSObjectRef objRef = JSObjectMakeError((JSContextRef)ctx, (size_t)len, (len==0)?NULL:elements,
             &exception);
     JSValueProtect((JSContextRef) ctx, objRef);
-    env->SetLongField( out, fid, (long) objRef );
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
+    env->SetLongField( out, fidReturnReference, (long) objRef );
+    env->SetLongField( out, fidReturnException, (long) exception);
 
     delete [] elements;
-    return out;
 }
 
-NATIVE(JSObject,jobject,makeRegExp) (PARAMS, jlong ctx, jlongArray args) {
+NATIVE(JSObject,void,makeRegExp) (PARAMS, jlong ctx, jlongArray args, jobject out) {
     JSValueRef exception = NULL;
 
     int i;
@@ -155,26 +128,17 @@ NATIVE(JSObject,jobject,makeRegExp) (PARAMS, jlong ctx, jlongArray args) {
     }
     env->ReleaseLongArrayElements(args, values, 0);
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSObjectRef objRef = JSObjectMakeRegExp((JSContextRef)ctx, (size_t)len, (len==0)?NULL:elements,
               &exception);
     JSValueProtect((JSContextRef) ctx, objRef);
-    env->SetLongField( out, fid, (long) objRef );
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
+    env->SetLongField( out, fidReturnReference, (long) objRef );
+    env->SetLongField( out, fidReturnException, (long) exception);
 
     delete [] elements;
-    return out;
 }
 
-NATIVE(JSObject,jobject,makeFunction) (PARAMS, jlong ctx, jlong name,
-        jlongArray parameterNames, jlong body, jlong sourceURL, jint startingLineNumber) {
+NATIVE(JSObject,void,makeFunction) (PARAMS, jlong ctx, jlong name,
+        jlongArray parameterNames, jlong body, jlong sourceURL, jint startingLineNumber, jobject out) {
 
     JSValueRef exception = NULL;
 
@@ -187,12 +151,6 @@ NATIVE(JSObject,jobject,makeFunction) (PARAMS, jlong ctx, jlong name,
     }
     env->ReleaseLongArrayElements(parameterNames, parameters, 0);
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSObjectRef objref = JSObjectMakeFunction(
         (JSContextRef)ctx,
         (JSStringRef)name,
@@ -203,13 +161,10 @@ NATIVE(JSObject,jobject,makeFunction) (PARAMS, jlong ctx, jlong name,
         (int)startingLineNumber,
         &exception);
     JSValueProtect((JSContextRef) ctx, objref);
-    env->SetLongField( out, fid, (long)objref);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
+    env->SetLongField( out, fidReturnReference, (long)objref);
+    env->SetLongField( out, fidReturnException, (long) exception);
 
     delete [] parameterNameArr;
-    return out;
 }
 
 NATIVE(JSObject,jlong,getPrototype) (PARAMS, jlong ctx, jlong object) {
@@ -226,111 +181,62 @@ NATIVE(JSObject,jboolean,hasProperty) (PARAMS, jlong ctx, jlong object, jlong pr
     return JSObjectHasProperty((JSContextRef)ctx, (JSObjectRef) object, (JSStringRef)propertyName);
 }
 
-NATIVE(JSObject,jobject,getProperty) (PARAMS, jlong ctx, jlong object,
-    jlong propertyName) {
+NATIVE(JSObject,void,getProperty) (PARAMS, jlong ctx, jlong object,
+    jlong propertyName, jobject out) {
 
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSValueRef value = JSObjectGetProperty((JSContextRef)ctx, (JSObjectRef)object, (JSStringRef)propertyName,
         &exception);
     JSValueProtect((JSContextRef) ctx, value);
 
-    env->SetLongField( out, fid, (long)value);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
-
-    return out;
+    env->SetLongField( out, fidReturnReference, (long)value);
+    env->SetLongField( out, fidReturnException, (long) exception);
 }
 
-NATIVE(JSObject,jobject,setProperty) (PARAMS, jlong ctx, jlong object, jlong propertyName,
-    jlong value, jint attributes) {
+NATIVE(JSObject,void,setProperty) (PARAMS, jlong ctx, jlong object, jlong propertyName,
+    jlong value, jint attributes, jobject out) {
 
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
     JSObjectSetProperty((JSContextRef)ctx, (JSObjectRef) object, (JSStringRef) propertyName,
             (JSValueRef)value, (JSPropertyAttributes)attributes, &exception);
-
-    jfieldID fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
-
-    return out;
+    env->SetLongField( out, fidReturnException, (long) exception);
 }
 
-NATIVE(JSObject,jobject,deleteProperty) (PARAMS, jlong ctx, jlong object,
-    jlong propertyName) {
+NATIVE(JSObject,void,deleteProperty) (PARAMS, jlong ctx, jlong object,
+    jlong propertyName, jobject out) {
 
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret ,"bool", "Z");
-
     bool bval = (bool) JSObjectDeleteProperty((JSContextRef)ctx, (JSObjectRef) object,
             (JSStringRef) propertyName, &exception);
 
-    env->SetBooleanField( out, fid, bval);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
-
-    return out;
+    env->SetBooleanField( out, fidReturnBool, bval);
+    env->SetLongField( out, fidReturnException, (long) exception);
 }
 
-NATIVE(JSObject,jobject,getPropertyAtIndex) (PARAMS, jlong ctx, jlong object,
-    jint propertyIndex) {
+NATIVE(JSObject,void,getPropertyAtIndex) (PARAMS, jlong ctx, jlong object,
+    jint propertyIndex, jobject out) {
 
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSValueRef value = JSObjectGetPropertyAtIndex((JSContextRef)ctx, (JSObjectRef) object,
             (unsigned)propertyIndex, &exception);
     JSValueProtect((JSContextRef)ctx, value);
 
-    env->SetLongField( out, fid, (long)value );
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
-
-    return out;
+    env->SetLongField( out, fidReturnReference, (long)value );
+    env->SetLongField( out, fidReturnException, (long) exception);
 }
 
-NATIVE(JSObject,jobject,setPropertyAtIndex) (PARAMS, jlong ctx, jlong object,
-    jint propertyIndex, jlong value) {
+NATIVE(JSObject,void,setPropertyAtIndex) (PARAMS, jlong ctx, jlong object,
+    jint propertyIndex, jlong value, jobject out) {
 
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSObjectSetPropertyAtIndex((JSContextRef)ctx, (JSObjectRef) object, (unsigned) propertyIndex,
             (JSValueRef)value, &exception);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
-
-
-    return out;
+    env->SetLongField( out, fidReturnException, (long) exception);
 }
 
 NATIVE(JSObject,jlong,getPrivate) (PARAMS, jlong object) {
@@ -345,8 +251,8 @@ NATIVE(JSObject,jboolean,isFunction) (PARAMS, jlong ctx, jlong object) {
     return (jboolean) JSObjectIsFunction((JSContextRef)ctx, (JSObjectRef) object);
 }
 
-NATIVE(JSObject,jobject,callAsFunction) (PARAMS, jlong ctx, jlong object,
-    jlong thisObject, jlongArray args) {
+NATIVE(JSObject,void,callAsFunction) (PARAMS, jlong ctx, jlong object,
+    jlong thisObject, jlongArray args, jobject out) {
     JSValueRef exception = NULL;
 
     int i;
@@ -358,31 +264,22 @@ NATIVE(JSObject,jobject,callAsFunction) (PARAMS, jlong ctx, jlong object,
     }
     env->ReleaseLongArrayElements(args, values, 0);
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSValueRef value = JSObjectCallAsFunction((JSContextRef)ctx, (JSObjectRef) object, (JSObjectRef) thisObject,
         (size_t)len, (len==0)?NULL:elements, &exception);
     JSValueProtect((JSContextRef) ctx, value);
 
-    env->SetLongField( out, fid, (long)value);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
+    env->SetLongField( out, fidReturnReference, (long)value);
+    env->SetLongField( out, fidReturnException, (long) exception);
 
     delete [] elements;
-    return out;
 }
 
 NATIVE(JSObject,jboolean,isConstructor) (PARAMS, jlong ctx, jlong object) {
     return (jboolean) JSObjectIsConstructor((JSContextRef)ctx, (JSObjectRef)object);
 }
 
-NATIVE(JSObject,jobject,callAsConstructor) (PARAMS, jlong ctx, jlong object,
-    jlongArray args) {
+NATIVE(JSObject,void,callAsConstructor) (PARAMS, jlong ctx, jlong object,
+    jlongArray args, jobject out) {
 
     JSValueRef exception = NULL;
 
@@ -395,23 +292,14 @@ NATIVE(JSObject,jobject,callAsConstructor) (PARAMS, jlong ctx, jlong object,
     }
     env->ReleaseLongArrayElements(args, values, 0);
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSValueRef value = JSObjectCallAsConstructor((JSContextRef)ctx, (JSObjectRef) object,
         (size_t)len, (len==0)?NULL:elements, &exception);
     JSValueProtect((JSContextRef) ctx, value);
 
-    env->SetLongField( out, fid, (long)value);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
+    env->SetLongField( out, fidReturnReference, (long)value);
+    env->SetLongField( out, fidReturnException, (long) exception);
 
     delete [] elements;
-    return out;
 }
 
 NATIVE(JSObject,jlong,copyPropertyNames) (PARAMS, jlong ctx, jlong object) {
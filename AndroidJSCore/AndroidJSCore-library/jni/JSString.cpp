@@ -31,6 +31,8 @@
  OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 
+#include <string.h>
+
 #include "JSJNI.h"
 
 NATIVE(JSValue_00024JSString,jlong,createWithCharacters) (PARAMS, jstring str)
@@ -62,13 +64,26 @@ NATIVE(JSValue_00024JSString,jint,getLength) (PARAMS, jlong stringRef) {
     return (jint) JSStringGetLength((JSStringRef)stringRef);
 }
 
+/* JavaScriptCore strings are UTF-16 internally, as are Java strings, so the characters are
+ * copied straight across with no transcoding */
 NATIVE(JSValue_00024JSString,jstring,toString) (PARAMS, jlong stringRef) {
-    char *buffer = new char[JSStringGetMaximumUTF8CStringSize((JSStringRef)stringRef)+1];
-    JSStringGetUTF8CString((JSStringRef)stringRef, buffer,
-        JSStringGetMaximumUTF8CStringSize((JSStringRef)stringRef)+1);
-    jstring ret = env->NewStringUTF(buffer);
-    delete buffer;
-    return ret;
+    return env->NewString(JSStringGetCharactersPtr((JSStringRef)stringRef),
+        (jsize)JSStringGetLength((JSStringRef)stringRef));
+}
+
+NATIVE(JSValue_00024JSString,void,getCharsToArray) (PARAMS, jlong stringRef, jint start,
+    jint count, jcharArray dst, jint dstOff) {
+    env->SetCharArrayRegion(dst, dstOff, count,
+        (const jchar *) JSStringGetCharactersPtr((JSStringRef)stringRef) + start);
+}
+
+NATIVE(JSValue_00024JSString,void,getCharsToBuffer) (PARAMS, jlong stringRef, jint start,
+    jint count, jobject dst, jint dstOff) {
+    jchar *chars = (jchar *) env->GetDirectBufferAddress(dst);
+    if (chars != NULL) {
+        memcpy(chars + dstOff, JSStringGetCharactersPtr((JSStringRef)stringRef) + start,
+            (size_t)count * sizeof(jchar));
+    }
 }
 
 NATIVE(JSValue_00024JSString,jint,getMaximumUTF8CStringSize) (PARAMS, jlong stringRef) {
@@ -0,0 +1,228 @@
+//
+// JSTypedArray.cpp
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+#include <math.h>
+#include <stdint.h>
+#include <vector>
+
+#include "JSJNI.h"
+
+/* Element types, must match the TYPE_ constants in JSTypedArray.java */
+enum {
+    TYPE_INT8 = 0,
+    TYPE_UINT8,
+    TYPE_UINT8_CLAMPED,
+    TYPE_INT16,
+    TYPE_UINT16,
+    TYPE_INT32,
+    TYPE_UINT32,
+    TYPE_FLOAT32,
+    TYPE_FLOAT64
+};
+
+/* JavaScript's ToUint32: truncates, then wraps modulo 2^32; NaN and the infinities become 0.
+ * Narrower integer types keep the low bits, as ToInt8, ToUint16 etc. do. */
+static inline uint32_t toUint32(double d) {
+    if (!isfinite(d)) return 0;
+    double m = fmod(trunc(d), 4294967296.0);
+    if (m < 0) m += 4294967296.0;
+    return (uint32_t) m;
+}
+
+/* JavaScript's ToUint8Clamp: clamps to [0,255] and rounds half to even; NaN becomes 0 */
+static inline uint8_t toUint8Clamp(double d) {
+    if (!(d > 0)) return 0;
+    if (d >= 255) return 255;
+    double f = floor(d);
+    if (d - f > 0.5 || (d - f == 0.5 && fmod(f, 2) != 0)) f += 1;
+    return (uint8_t) f;
+}
+
+static inline void storeElement(void *data, jint type, jint i, double d) {
+    switch (type) {
+        case TYPE_INT8:           ((int8_t *)  data)[i] = (int8_t)   toUint32(d); break;
+        case TYPE_UINT8:          ((uint8_t *) data)[i] = (uint8_t)  toUint32(d); break;
+        case TYPE_UINT8_CLAMPED:  ((uint8_t *) data)[i] = toUint8Clamp(d); break;
+        case TYPE_INT16:          ((int16_t *) data)[i] = (int16_t)  toUint32(d); break;
+        case TYPE_UINT16:         ((uint16_t *)data)[i] = (uint16_t) toUint32(d); break;
+        case TYPE_INT32:          ((int32_t *) data)[i] = (int32_t)  toUint32(d); break;
+        case TYPE_UINT32:         ((uint32_t *)data)[i] = toUint32(d); break;
+        case TYPE_FLOAT32:        ((float *)   data)[i] = (float)    d; break;
+        case TYPE_FLOAT64:        ((double *)  data)[i] = d; break;
+        default: break;
+    }
+}
+
+static inline double loadElement(const void *data, jint type, jint i) {
+    switch (type) {
+        case TYPE_INT8:           return ((const int8_t *)  data)[i];
+        case TYPE_UINT8:
+        case TYPE_UINT8_CLAMPED:  return ((const uint8_t *) data)[i];
+        case TYPE_INT16:          return ((const int16_t *) data)[i];
+        case TYPE_UINT16:         return ((const uint16_t *)data)[i];
+        case TYPE_INT32:          return ((const int32_t *) data)[i];
+        case TYPE_UINT32:         return ((const uint32_t *)data)[i];
+        case TYPE_FLOAT32:        return ((const float *)   data)[i];
+        case TYPE_FLOAT64:        return ((const double *)  data)[i];
+        default:                  return 0;
+    }
+}
+
+/* This build of JavaScriptCore does not expose typed array backing stores through its C API,
+ * so elements are copied one at a time, but within a single native call. */
+NATIVE(JSTypedArray,void,copyToBuffer) (PARAMS, jlong ctx, jlong object, jint type,
+    jint offset, jint count, jobject buffer, jobject out) {
+
+    JSValueRef exception = NULL;
+    void *data = env->GetDirectBufferAddress(buffer);
+
+    for (jint i=0; data && i<count && !exception; i++) {
+        JSValueRef value = JSObjectGetPropertyAtIndex((JSContextRef)ctx, (JSObjectRef)object,
+                (unsigned)(offset + i), &exception);
+        if (!exception) {
+            double d = JSValueToNumber((JSContextRef)ctx, value, &exception);
+            storeElement(data, type, i, d);
+        }
+    }
+    env->SetLongField( out, fidReturnException, (long) exception);
+}
+
+NATIVE(JSTypedArray,void,copyFromBuffer) (PARAMS, jlong ctx, jlong object, jint type,
+    jint offset, jint count, jobject buffer, jobject out) {
+
+    JSValueRef exception = NULL;
+    const void *data = env->GetDirectBufferAddress(buffer);
+
+    for (jint i=0; data && i<count && !exception; i++) {
+        JSValueRef value = JSValueMakeNumber((JSContextRef)ctx, loadElement(data, type, i));
+        JSObjectSetPropertyAtIndex((JSContextRef)ctx, (JSObjectRef)object, (unsigned)(offset + i),
+                value, &exception);
+    }
+    env->SetLongField( out, fidReturnException, (long) exception);
+}
+
+/* Copies 'count' elements starting at 'offset' into the Java primitive array 'dst' (byte[],
+ * short[], int[], float[] or double[] according to 'type'), starting at 'dstOff'. */
+NATIVE(JSTypedArray,void,copyToArray) (PARAMS, jlong ctx, jlong object, jint type,
+    jint offset, jint count, jobject dst, jint dstOff, jobject out) {
+
+    JSValueRef exception = NULL;
+    std::vector<double> data((size_t)count);
+
+    for (jint i=0; i<count && !exception; i++) {
+        JSValueRef value = JSObjectGetPropertyAtIndex((JSContextRef)ctx, (JSObjectRef)object,
+                (unsigned)(offset + i), &exception);
+        if (!exception) {
+            data[i] = JSValueToNumber((JSContextRef)ctx, value, &exception);
+        }
+    }
+    if (!exception) {
+        switch (type) {
+            case TYPE_INT8:
+            case TYPE_UINT8:
+            case TYPE_UINT8_CLAMPED: {
+                std::vector<jbyte> elements((size_t)count);
+                for (jint i=0; i<count; i++) storeElement(elements.data(), type, i, data[i]);
+                env->SetByteArrayRegion((jbyteArray)dst, dstOff, count, elements.data());
+            } break;
+            case TYPE_INT16:
+            case TYPE_UINT16: {
+                std::vector<jshort> elements((size_t)count);
+                for (jint i=0; i<count; i++) storeElement(elements.data(), type, i, data[i]);
+                env->SetShortArrayRegion((jshortArray)dst, dstOff, count, elements.data());
+            } break;
+            case TYPE_INT32:
+            case TYPE_UINT32: {
+                std::vector<jint> elements((size_t)count);
+                for (jint i=0; i<count; i++) storeElement(elements.data(), type, i, data[i]);
+                env->SetIntArrayRegion((jintArray)dst, dstOff, count, elements.data());
+            } break;
+            case TYPE_FLOAT32: {
+                std::vector<jfloat> elements((size_t)count);
+                for (jint i=0; i<count; i++) storeElement(elements.data(), type, i, data[i]);
+                env->SetFloatArrayRegion((jfloatArray)dst, dstOff, count, elements.data());
+            } break;
+            case TYPE_FLOAT64:
+                env->SetDoubleArrayRegion((jdoubleArray)dst, dstOff, count, data.data());
+                break;
+            default: break;
+        }
+    }
+    env->SetLongField( out, fidReturnException, (long) exception);
+}
+
+/* Copies 'count' elements from the Java primitive array 'src', starting at 'srcOff', into
+ * the typed array starting at 'offset' */
+NATIVE(JSTypedArray,void,copyFromArray) (PARAMS, jlong ctx, jlong object, jint type,
+    jint offset, jint count, jobject src, jint srcOff, jobject out) {
+
+    JSValueRef exception = NULL;
+    std::vector<double> data((size_t)count);
+
+    switch (type) {
+        case TYPE_INT8:
+        case TYPE_UINT8:
+        case TYPE_UINT8_CLAMPED: {
+            std::vector<jbyte> elements((size_t)count);
+            env->GetByteArrayRegion((jbyteArray)src, srcOff, count, elements.data());
+            for (jint i=0; i<count; i++) data[i] = loadElement(elements.data(), type, i);
+        } break;
+        case TYPE_INT16:
+        case TYPE_UINT16: {
+            std::vector<jshort> elements((size_t)count);
+            env->GetShortArrayRegion((jshortArray)src, srcOff, count, elements.data());
+            for (jint i=0; i<count; i++) data[i] = loadElement(elements.data(), type, i);
+        } break;
+        case TYPE_INT32:
+        case TYPE_UINT32: {
+            std::vector<jint> elements((size_t)count);
+            env->GetIntArrayRegion((jintArray)src, srcOff, count, elements.data());
+            for (jint i=0; i<count; i++) data[i] = loadElement(elements.data(), type, i);
+        } break;
+        case TYPE_FLOAT32: {
+            std::vector<jfloat> elements((size_t)count);
+            env->GetFloatArrayRegion((jfloatArray)src, srcOff, count, elements.data());
+            for (jint i=0; i<count; i++) data[i] = loadElement(elements.data(), type, i);
+        } break;
+        case TYPE_FLOAT64:
+            env->GetDoubleArrayRegion((jdoubleArray)src, srcOff, count, data.data());
+            break;
+        default: break;
+    }
+    for (jint i=0; i<count && !exception; i++) {
+        JSValueRef value = JSValueMakeNumber((JSContextRef)ctx, data[i]);
+        JSObjectSetPropertyAtIndex((JSContextRef)ctx, (JSObjectRef)object, (unsigned)(offset + i),
+                value, &exception);
+    }
+    env->SetLongField( out, fidReturnException, (long) exception);
+}
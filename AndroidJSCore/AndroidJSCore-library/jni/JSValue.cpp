@@ -32,42 +32,13 @@
 */
 
 #include "JSJNI.h"
+#include "JSConvert.h"
 
 NATIVE(JSValue,jint,getType) (PARAMS, jlong ctxRef, jlong valueRef )
 {
     return (jint) JSValueGetType((JSContextRef)ctxRef, (JSValueRef)valueRef);
 }
 
-NATIVE(JSValue,jboolean,isUndefined) (PARAMS, jlong ctxRef, jlong valueRef)
-{
-    return (jboolean) JSValueIsUndefined((JSContextRef)ctxRef, (JSValueRef)valueRef);
-}
-
-NATIVE(JSValue,jboolean,isNull) (PARAMS, jlong ctxRef, jlong valueRef)
-{
-    return (jboolean) JSValueIsNull((JSContextRef)ctxRef, (JSValueRef)valueRef);
-}
-
-NATIVE(JSValue,jboolean,isBoolean) (PARAMS, jlong ctxRef, jlong valueRef)
-{
-    return (jboolean) JSValueIsBoolean((JSContextRef)ctxRef, (JSValueRef)valueRef);
-}
-
-NATIVE(JSValue,jboolean,isNumber) (PARAMS, jlong ctxRef, jlong valueRef)
-{
-    return (jboolean) JSValueIsNumber((JSContextRef)ctxRef, (JSValueRef)valueRef);
-}
-
-NATIVE(JSValue,jboolean,isString) (PARAMS, jlong ctxRef, jlong valueRef)
-{
-    return (jboolean) JSValueIsString((JSContextRef)ctxRef, (JSValueRef)valueRef);
-}
-
-NATIVE(JSValue,jboolean,isObject) (PARAMS, jlong ctxRef, jlong valueRef)
-{
-    return (jboolean) JSValueIsObject((JSContextRef)ctxRef, (JSValueRef)valueRef);
-}
-
 NATIVE(JSValue,jboolean,isArray) (PARAMS, jlong ctxRef, jlong valueRef)
 {
     return (jboolean) JSValueIsArray((JSContextRef)ctxRef, (JSValueRef)valueRef);
@@ -80,25 +51,15 @@ NATIVE(JSValue,jboolean,isDate) (PARAMS, jlong ctxRef, jlong valueRef)
 
 /* Comparing values */
 
-NATIVE(JSValue,jobject,isEqual) (PARAMS, jlong ctxRef, jlong a, jlong b)
+NATIVE(JSValue,void,isEqual) (PARAMS, jlong ctxRef, jlong a, jlong b, jobject out)
 {
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret ,"bool", "Z");
-
     bool bret = JSValueIsEqual((JSContextRef) ctxRef, (JSValueRef)a, (JSValueRef)b,
          &exception);
 
-    env->SetBooleanField( out, fid, bret);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long)exception);
-
-    return out;
+    env->SetBooleanField( out, fidReturnBool, bret);
+    env->SetLongField( out, fidReturnException, (long)exception);
 }
 
 NATIVE(JSValue,jboolean,isStrictEqual) (PARAMS, jlong ctxRef, jlong a, jlong b)
@@ -106,26 +67,16 @@ NATIVE(JSValue,jboolean,isStrictEqual) (PARAMS, jlong ctxRef, jlong a, jlong b)
     return (jboolean) JSValueIsStrictEqual((JSContextRef)ctxRef, (JSValueRef)a, (JSValueRef)b);
 }
 
-NATIVE(JSValue,jobject,isInstanceOfConstructor) (PARAMS, jlong ctxRef, jlong valueRef,
-    jlong constructor)
+NATIVE(JSValue,void,isInstanceOfConstructor) (PARAMS, jlong ctxRef, jlong valueRef,
+    jlong constructor, jobject out)
 {
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret ,"bool", "Z");
-
     bool bret = JSValueIsInstanceOfConstructor((JSContextRef) ctxRef, (JSValueRef)valueRef,
             (JSObjectRef)constructor, &exception);
 
-    env->SetBooleanField( out, fid, bret);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long)exception);
-
-    return out;
+    env->SetBooleanField( out, fidReturnBool, bret);
+    env->SetLongField( out, fidReturnException, (long)exception);
 }
 
 /* Creating values */
@@ -174,29 +125,18 @@ NATIVE(JSValue,jlong,makeFromJSONString) (PARAMS, jlong ctx, jlong stringRef)
     return (long)value;
 }
 
-NATIVE(JSValue,jobject,createJSONString) (PARAMS, jlong ctxRef, jlong valueRef, jint indent)
+NATIVE(JSValue,void,createJSONString) (PARAMS, jlong ctxRef, jlong valueRef, jint indent, jobject out)
 {
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
     JSStringRef value = JSValueCreateJSONString(
         (JSContextRef)ctxRef,
         (JSValueRef)valueRef,
         (unsigned)indent,
         &exception);
-    if (value)
-        value = JSStringRetain(value);
 
-    env->SetLongField( out, fid, (long)value);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long)exception);
-
-    return out;
+    env->SetLongField( out, fidReturnReference, (long)value);
+    env->SetLongField( out, fidReturnException, (long)exception);
 }
 
 /* Converting to primitive values */
@@ -206,71 +146,60 @@ NATIVE(JSValue,jboolean,toBoolean) (PARAMS, jlong ctx, jlong valueRef)
     return (jboolean) JSValueToBoolean((JSContextRef)ctx, (JSValueRef)valueRef);
 }
 
-NATIVE(JSValue,jobject,toNumber) (PARAMS, jlong ctxRef, jlong valueRef)
+NATIVE(JSValue,void,toNumber) (PARAMS, jlong ctxRef, jlong valueRef, jobject out)
 {
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "number", "D");
-
     jdouble dret = JSValueToNumber((JSContextRef)ctxRef, (JSValueRef)valueRef, &exception);
 
-    env->SetDoubleField( out, fid, dret);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
-
-    return out;
+    env->SetDoubleField( out, fidReturnNumber, dret);
+    env->SetLongField( out, fidReturnException, (long) exception);
 }
 
-NATIVE(JSValue,jobject,toStringCopy) (PARAMS, jlong ctxRef, jlong valueRef)
+NATIVE(JSValue,void,toStringCopy) (PARAMS, jlong ctxRef, jlong valueRef, jobject out)
 {
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSStringRef string = JSValueToStringCopy((JSContextRef)ctxRef, (JSValueRef)valueRef, &exception);
     if (string)
         string = JSStringRetain(string);
 
-    env->SetLongField( out, fid, (long)string);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
-
-    return out;
+    env->SetLongField( out, fidReturnReference, (long)string);
+    env->SetLongField( out, fidReturnException, (long) exception);
 }
 
-NATIVE(JSValue,jobject,toObject) (PARAMS, jlong ctxRef, jlong valueRef)
+NATIVE(JSValue,void,toObject) (PARAMS, jlong ctxRef, jlong valueRef, jobject out)
 {
     JSValueRef exception = NULL;
 
-    jclass ret = env->FindClass("org/liquidplayer/webkit/javascriptcore/JSValue$JNIReturnObject");
-    jmethodID cid = env->GetMethodID(ret,"<init>","()V");
-    jobject out = env->NewObject(ret, cid);
-
-    jfieldID fid = env->GetFieldID(ret , "reference", "J");
-
     JSObjectRef value = JSValueToObject((JSContextRef)ctxRef, (JSValueRef)valueRef, &exception);
     JSValueProtect((JSContextRef)ctxRef, value);
 
-    env->SetLongField( out, fid, (long)value);
-
-    fid = env->GetFieldID(ret , "exception", "J");
-    env->SetLongField( out, fid, (long) exception);
-
-    return out;
+    env->SetLongField( out, fidReturnReference, (long)value);
+    env->SetLongField( out, fidReturnException, (long) exception);
 }
 
 /* Garbage collection */
 
+/* Wraps a value returned from JavaScriptCore.  Numbers, booleans, null and undefined are
+ * passed back inline in 'out' when 'inline' is set, and are not protected since the wrapper
+ * will not hold on to their references.  Anything else is protected.  Returns the type. */
+NATIVE(JSValue,jint,wrap) (PARAMS, jlong ctxRef, jlong valueRef, jboolean inlined,
+    jobject out)
+{
+    JSType type = JSValueGetType((JSContextRef)ctxRef, (JSValueRef)valueRef);
+    if (inlined && type == kJSTypeNumber) {
+        env->SetDoubleField( out, fidReturnNumber,
+            JSValueToNumber((JSContextRef)ctxRef, (JSValueRef)valueRef, NULL));
+    } else if (inlined && type == kJSTypeBoolean) {
+        env->SetBooleanField( out, fidReturnBool,
+            JSValueToBoolean((JSContextRef)ctxRef, (JSValueRef)valueRef));
+    } else if (!inlined || (type != kJSTypeUndefined && type != kJSTypeNull)) {
+        JSValueProtect((JSContextRef)ctxRef, (JSValueRef)valueRef);
+    }
+    return (jint) type;
+}
+
 NATIVE(JSValue,void,protect) (PARAMS, jlong ctxRef, jlong valueRef)
 {
     JSValueProtect((JSContextRef)ctxRef, (JSValueRef)valueRef );
@@ -281,8 +210,33 @@ NATIVE(JSValue,void,unprotect) (PARAMS, jlong ctxRef, jlong valueRef)
     JSValueUnprotect((JSContextRef)ctxRef, (JSValueRef)valueRef);
 }
 
+NATIVE(JSValue,void,unprotectAll) (PARAMS, jlong ctxRef, jlongArray valueRefs, jint count)
+{
+    jlong *values = env->GetLongArrayElements(valueRefs, NULL);
+    for (jint i=0; i<count; i++) {
+        JSValueUnprotect((JSContextRef)ctxRef, (JSValueRef)values[i]);
+    }
+    env->ReleaseLongArrayElements(valueRefs, values, JNI_ABORT);
+}
+
 NATIVE(JSValue,void,setException) (PARAMS, jlong valueRef, jlong exceptionRefRef)
 {
     JSValueRef *exception = (JSValueRef *)exceptionRefRef;
     *exception = (JSValueRef)valueRef;
 }
+
+/* Converting whole Java object graphs */
+
+NATIVE(JSValue,void,makeFromJava) (PARAMS, jlong ctxRef, jobject object, jint maxDepth,
+    jobject out)
+{
+    JSValueRef exception = NULL;
+
+    JSValueRef value = JSConvert::ToJSValueDeep(env, (JSContextRef)ctxRef, object, maxDepth,
+        &exception);
+    if (value)
+        JSValueProtect((JSContextRef)ctxRef, value);
+
+    env->SetLongField( out, fidReturnReference, (long)value);
+    env->SetLongField( out, fidReturnException, (long)exception);
+}
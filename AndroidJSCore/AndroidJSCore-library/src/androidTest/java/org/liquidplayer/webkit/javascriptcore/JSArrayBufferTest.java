@@ -3,6 +3,8 @@ package org.liquidplayer.webkit.javascriptcore;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
 import static org.junit.Assert.*;
 import static org.hamcrest.Matchers.*;
 
@@ -67,6 +69,18 @@ public class JSArrayBufferTest {
         assertThat(new JSInt32Array(buf3).get(0),is(42));
     }
 
+    @Test
+    public void testToByteBuffer() throws Exception {
+        new JSInt32Array(arrayBuffer).set(1,0x01020304);
+        ByteBuffer bytes = arrayBuffer.toByteBuffer();
+        assertThat(bytes.capacity(),is(BYTE_LENGTH));
+        assertThat(bytes.getInt(4),is(0x01020304));
+
+        bytes.putInt(8,42);
+        arrayBuffer.write(bytes);
+        assertThat(new JSInt32Array(arrayBuffer).get(2),is(42));
+    }
+
     @org.junit.After
     public void shutDown() {
         Runtime.getRuntime().gc();
@@ -737,4 +737,73 @@ public class JSArrayTest {
 
     }
 
-}
\ No newline at end of file
+    @org.junit.Test
+    public void testNumericAccess() throws Exception {
+        JSContext context = new JSContext();
+        JSArray<Integer> array = new JSArray<>(context, new Integer[] {1,2,3,4,5}, Integer.class);
+        assertThat(array.size(),is(5));
+        assertThat(array.get(2),is(3));
+        array.set(2, 30);
+        assertThat(array.get(2),is(30));
+        assertThat(context.evaluateScript("(function(a) { return a[2]; })")
+                .toFunction().call(null, array).toNumber().intValue(),is(30));
+
+        int sum = 0;
+        for (Integer i : array) sum += i;
+        assertThat(sum,is(1+2+30+4+5));
+        assertTrue(array.contains(4));
+        assertFalse(array.contains(3));
+        assertThat(array.indexOf(5),is(4));
+
+        List<Integer> sub = array.subList(1,4);
+        assertThat(sub.size(),is(3));
+        assertThat(sub.get(0),is(2));
+        sub.set(1, 300);
+        assertThat(array.get(2),is(300));
+
+        // Non-numeric elements convert as JSValue.toNumber() would
+        JSArray<Double> mixed = new JSArray<>(context, new Object[] {"7", true}, Double.class);
+        assertThat(mixed.get(0),is(7.0));
+        assertThat(mixed.get(1),is(1.0));
+    }
+
+    @org.junit.Test
+    public void testBulkConversion() throws Exception {
+        JSContext context = new JSContext();
+
+        JSArray<Double> doubles = new JSArray<>(context, new double[] {1.5, -2, 3}, Double.class);
+        assertThat(doubles.size(),is(3));
+        assertThat(doubles.get(1),is(-2.0));
+        assertArrayEquals(new double[] {1.5, -2, 3}, doubles.toDoubleArray(), 0.0);
+        assertArrayEquals(new int[] {1, -2, 3}, doubles.toIntArray());
+
+        JSArray<Integer> ints = new JSArray<>(context, new int[] {4, 5, 6}, Integer.class);
+        assertArrayEquals(new Integer[] {4, 5, 6}, ints.toArray());
+
+        JSArray<Boolean> booleans = new JSArray<>(context, new boolean[] {true, false},
+                Boolean.class);
+        assertTrue(booleans.toBooleanArray()[0]);
+        assertFalse(booleans.toBooleanArray()[1]);
+
+        JSObject object = new JSObject(context);
+        JSArray<JSValue> mixed = new JSArray<>(context,
+                new Object[] {"one", 2, true, null, 4.5f, object, Arrays.asList(1,2)},
+                JSValue.class);
+        assertThat(mixed.size(),is(7));
+        assertArrayEquals(new String[] {"one", "2", "true", "null", "4.5", "[object Object]", "1,2"},
+                mixed.toStringArray());
+        assertTrue(mixed.get(3).isNull());
+        assertTrue(mixed.get(5).toObject() == object);
+        JSValue [] values = (JSValue []) mixed.toArray(JSValue.class);
+        assertThat(values[1].toNumber(),is(2.0));
+        assertTrue(values[6].isArray());
+
+        List<Integer> sub = ints.subList(1,3);
+        assertArrayEquals(new Integer[] {5, 6}, sub.toArray());
+
+        int [] big = new int[50000];
+        for (int i=0; i<big.length; i++) big[i] = i;
+        JSArray<Integer> bigArray = new JSArray<>(context, big, Integer.class);
+        assertArrayEquals(big, bigArray.toIntArray());
+    }
+}
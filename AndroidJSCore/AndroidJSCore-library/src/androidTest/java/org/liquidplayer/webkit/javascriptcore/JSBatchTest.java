@@ -0,0 +1,65 @@
+package org.liquidplayer.webkit.javascriptcore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JSBatchTest {
+
+    private JSContext context;
+
+    @Before
+    public void setUp() throws Exception {
+        context = new JSContext();
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        context.evaluateScript("var obj = {a: 1, b: 'two'}; var arr = [10, 20, 30];" +
+                "var sum = function(x, y) { return x + y; };");
+        JSObject obj = context.property("obj").toObject();
+        JSObject arr = context.property("arr").toObject();
+        JSFunction sum = context.property("sum").toFunction();
+
+        JSBatch batch = context.batch()
+                .property(obj, "a")
+                .property(obj, "b")
+                .property(obj, "c", 3)
+                .propertyAtIndex(arr, 1)
+                .propertyAtIndex(arr, 3, 40)
+                .call(sum, null, 5, 6);
+        assertEquals(6, batch.size());
+
+        JSValue [] results = batch.execute();
+        assertEquals(6, results.length);
+        assertTrue(results[0].toNumber().equals(1.0));
+        assertEquals("two", results[1].toString());
+        assertNull(results[2]);
+        assertTrue(results[3].toNumber().equals(20.0));
+        assertNull(results[4]);
+        assertTrue(results[5].toNumber().equals(11.0));
+
+        assertTrue(obj.property("c").toNumber().equals(3.0));
+        assertTrue(arr.propertyAtIndex(3).toNumber().equals(40.0));
+    }
+
+    @Test
+    public void testBatchException() throws Exception {
+        context.evaluateScript("var obj = {}; Object.defineProperty(obj, 'bad', " +
+                "{ get: function() { throw new Error('bad property'); } });");
+        JSObject obj = context.property("obj").toObject();
+
+        JSBatch batch = context.batch()
+                .property(obj, "first", 1)
+                .property(obj, "bad")
+                .property(obj, "second", 2);
+        try {
+            batch.execute();
+            fail();
+        } catch (JSException e) {
+            assertTrue(obj.hasProperty("first"));
+            assertFalse(obj.hasProperty("second"));
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package org.liquidplayer.webkit.javascriptcore;
 
+import android.os.AsyncTask;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
 
 import org.junit.Test;
 
@@ -183,6 +185,52 @@ public class JSContextTest {
         if (thrownInMainThread != null) throw thrownInMainThread;
     }
 
+    private static final int LATENCY_ITERATIONS = 1000;
+    private long poolLatency;
+    private long workerLatency;
+
+    @Test
+    public void testMainThreadPropertyLatency() throws Exception {
+        final JSContext context = new JSContext();
+        context.property("foo", 42);
+        Handler handler = new Handler(Looper.getMainLooper());
+        final Semaphore mutex = new Semaphore(0);
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // The old dispatch model: one AsyncTask pool round trip per call
+                    long start = System.nanoTime();
+                    for (int i=0; i<LATENCY_ITERATIONS; i++) {
+                        new AsyncTask<Void,Void,JSValue>() {
+                            @Override
+                            protected JSValue doInBackground(Void... params) {
+                                return context.property("foo");
+                            }
+                        }.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR).get();
+                    }
+                    poolLatency = (System.nanoTime() - start) / LATENCY_ITERATIONS;
+
+                    // The context's own JS thread
+                    start = System.nanoTime();
+                    for (int i=0; i<LATENCY_ITERATIONS; i++) {
+                        context.property("foo");
+                    }
+                    workerLatency = (System.nanoTime() - start) / LATENCY_ITERATIONS;
+                    assertTrue(context.property("foo").toNumber().equals(42.0));
+                } catch (Exception e) {
+                    thrownInMainThread = e;
+                } finally {
+                    mutex.release();
+                }
+            }
+        });
+        mutex.acquireUninterruptibly();
+        if (thrownInMainThread != null) throw thrownInMainThread;
+        Log.i("JSContextTest", "property(String) from main thread: AsyncTask pool " + poolLatency +
+                " ns/op, JS thread " + workerLatency + " ns/op");
+    }
+
     @Test
     public void testDeadReferences() throws Exception {
         JSContext context = new JSContext();
@@ -192,6 +240,79 @@ public class JSContextTest {
         assertTrue(true);
     }
 
+    @Test
+    public void testAttachCount() throws Exception {
+        JSContext context = new JSContext();
+        context.property("f", new JSFunction(context, "f") {
+            @SuppressWarnings("unused")
+            public int f(int x) {
+                return x + 1;
+            }
+        });
+        // Callbacks made on the context's (Java) thread never need to attach.  Allow for a
+        // JavaScriptCore helper thread attaching once in the meantime.
+        long before = JSContext.attachCount();
+        for (int i=0; i<1000; i++) {
+            assertEquals(i + 1, context.evaluateScript("f(" + i + ")").toNumber().intValue());
+        }
+        assertTrue(JSContext.attachCount() - before <= 1);
+    }
+
+    @Test
+    public void testHelpers() throws Exception {
+        JSContext context = new JSContext();
+        JSFunction add = context.helper("_add", new String[] {"a","b"}, "return a + b;");
+        assertTrue(add == context.helper("_add", new String[] {"a","b"}, "return a + b;"));
+        assertEquals(3, add.call(null, 1, 2).toNumber().intValue());
+
+        // Helpers are per context
+        JSContext context2 = new JSContext();
+        assertTrue(add != context2.helper("_add", new String[] {"a","b"}, "return a + b;"));
+
+        for (int i=0; i<100; i++) {
+            JSFloat32Array array = new JSFloat32Array(context, 4);
+            array.set(1, (float) i);
+            assertTrue(array.get(1).equals((float) i));
+        }
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        JSContext context = new JSContext();
+        context.evaluateScript("var count = 0;");
+        JSScript script = context.compile("count = count + 1; count * 2", "count.js");
+        for (int i=1; i<=10; i++) {
+            assertEquals(i * 2, script.evaluate().toNumber().intValue());
+        }
+        assertEquals(10, context.property("count").toNumber().intValue());
+        assertEquals("count.js", script.getSourceURL());
+
+        // Compiling the same source again is served from the cache
+        assertTrue(script == context.compile("count = count + 1; count * 2", "count.js"));
+        assertEquals(1, context.getScriptCacheHits());
+        assertEquals(1, context.getScriptCacheMisses());
+        assertTrue(script != context.compile("count = count + 1; count * 2", "other.js"));
+        assertEquals(2, context.getScriptCacheMisses());
+
+        // Least recently used scripts are evicted
+        context.setScriptCacheCapacity(1);
+        assertEquals(1, context.getScriptCacheCapacity());
+        JSScript a = context.compile("'a'", null);
+        assertTrue(a == context.compile("'a'", null));
+        context.compile("'b'", null);
+        assertTrue(a != context.compile("'a'", null));
+        assertEquals("a", a.evaluate().toString());
+
+        // Syntax errors are reported when compiling
+        boolean threw = false;
+        try {
+            context.compile("var = ;", "bad.js");
+        } catch (JSException e) {
+            threw = true;
+        }
+        assertTrue(threw);
+    }
+
     @org.junit.After
     public void shutDown() {
         Runtime.getRuntime().gc();
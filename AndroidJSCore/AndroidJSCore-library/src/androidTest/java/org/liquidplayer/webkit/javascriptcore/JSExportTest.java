@@ -0,0 +1,123 @@
+package org.liquidplayer.webkit.javascriptcore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JSExportTest {
+
+    @JSExport
+    public interface Calculator {
+        int add(int a, int b);
+        String greet(String name);
+        void store(double value);
+        JSValue self();
+    }
+
+    @JSExport
+    public interface Store {
+        String load(String key) throws java.io.IOException;
+    }
+
+    public static class StoreObject extends JSObject implements Store {
+        public StoreObject(JSContext ctx) {
+            super(ctx, Store.class);
+        }
+        public String load(String key) throws java.io.IOException {
+            if (key == null) throw new java.io.IOException("no key");
+            return "value of " + key;
+        }
+    }
+
+    public interface Unexported {
+        int twice(int a);
+    }
+
+    public static class CalculatorObject extends JSObject implements Calculator, Unexported {
+        public CalculatorObject(JSContext ctx, Class<?> iface) {
+            super(ctx, iface);
+        }
+        double stored = 0;
+        public int add(int a, int b) {
+            return a + b;
+        }
+        public String greet(String name) {
+            return "hello " + name;
+        }
+        public void store(double value) {
+            stored = value;
+        }
+        public JSValue self() {
+            return getThis();
+        }
+        public int twice(int a) {
+            return a * 2;
+        }
+    }
+
+    public static class CalculatorContext extends JSContext implements Calculator {
+        public CalculatorContext() {
+            super(Calculator.class);
+        }
+        public int add(int a, int b) {
+            return a + b;
+        }
+        public String greet(String name) {
+            return "hi " + name;
+        }
+        public void store(double value) {
+        }
+        public JSValue self() {
+            return this;
+        }
+    }
+
+    @Test
+    public void testBinding() throws Exception {
+        JSContext context = new JSContext();
+        JSBinding binding = JSBinding.forInterface(Calculator.class);
+        assertNotNull(binding);
+        assertEquals(4, binding.size());
+        assertEquals("add", binding.name(0));
+
+        CalculatorObject calc = new CalculatorObject(context, Calculator.class);
+        context.property("calc", calc);
+        assertEquals(5, context.evaluateScript("calc.add(2,3)").toNumber().intValue());
+        assertEquals("hello world", context.evaluateScript("calc.greet('world')").toString());
+        assertTrue(context.evaluateScript("calc.store(1.5)").isUndefined());
+        assertEquals(1.5, calc.stored, 0);
+        assertTrue(context.evaluateScript("calc.self() === calc").toBoolean());
+        // Missing primitive arguments are zero
+        assertEquals(1, context.evaluateScript("calc.add(1)").toNumber().intValue());
+    }
+
+    @Test
+    public void testGlobalBinding() throws Exception {
+        JSContext context = new CalculatorContext();
+        assertEquals(7, context.evaluateScript("add(3,4)").toNumber().intValue());
+        assertEquals("hi there", context.evaluateScript("greet('there')").toString());
+    }
+
+    @Test
+    public void testReflectionFallback() throws Exception {
+        JSContext context = new JSContext();
+        assertNull(JSBinding.forInterface(Unexported.class));
+        context.property("calc", new CalculatorObject(context, Unexported.class));
+        assertEquals(8, context.evaluateScript("calc.twice(4)").toNumber().intValue());
+    }
+
+    @Test
+    public void testCheckedExceptions() throws Exception {
+        JSContext context = new JSContext();
+        assertNotNull(JSBinding.forInterface(Store.class));
+        context.property("store", new StoreObject(context));
+        assertEquals("value of a", context.evaluateScript("store.load('a')").toString());
+        boolean threw = false;
+        try {
+            context.evaluateScript("store.load()");
+        } catch (JSException e) {
+            threw = true;
+        }
+        assertTrue(threw);
+    }
+}
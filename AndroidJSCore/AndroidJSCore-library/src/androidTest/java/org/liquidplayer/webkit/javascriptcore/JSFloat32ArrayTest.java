@@ -3,6 +3,8 @@ package org.liquidplayer.webkit.javascriptcore;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -279,4 +281,23 @@ public class JSFloat32ArrayTest {
             assertThat(exception,is(true));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testToFloatBuffer() throws Exception {
+        JSFloat32Array array = new JSFloat32Array(context,1000);
+        for (int i=0; i<10; i++) array.set(i, i * 1.5f);
+        FloatBuffer buffer = array.toFloatBuffer();
+        assertThat(buffer.capacity(),is(1000));
+        for (int i=0; i<10; i++) assertThat(buffer.get(i),is(i * 1.5f));
+
+        ByteBuffer bytes = array.toByteBuffer();
+        bytes.asFloatBuffer().put(5, 99f);
+        array.write(bytes);
+        assertThat(array.get(5),is(99f));
+
+        JSFloat32Array sub = array.subList(4,8);
+        FloatBuffer subBuffer = sub.toFloatBuffer();
+        assertThat(subBuffer.capacity(),is(4));
+        assertThat(subBuffer.get(1),is(99f));
+    }
+}
@@ -1,5 +1,8 @@
 package org.liquidplayer.webkit.javascriptcore;
 
+import android.support.test.InstrumentationRegistry;
+import android.util.Log;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -11,6 +14,7 @@ import java.util.List;
 import java.util.ListIterator;
 
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assume.assumeTrue;
 import static org.junit.Assert.*;
 
 public class JSFloat64ArrayTest {
@@ -279,4 +283,68 @@ public class JSFloat64ArrayTest {
             assertThat(exception,is(true));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBulkCopy() throws Exception {
+        JSFloat64Array array = new JSFloat64Array(context,100);
+        double [] src = new double[50];
+        for (int i=0; i<src.length; i++) src[i] = i * 0.25;
+        array.set(10, src, 0, src.length);
+        assertThat(array.get(10),is(0.0));
+        assertThat(array.get(59),is(49 * 0.25));
+
+        double [] dst = new double[60];
+        array.get(10, dst, 5, 50);
+        for (int i=0; i<50; i++) assertThat(dst[i + 5],is(i * 0.25));
+
+        JSFloat64Array sub = array.subList(20,30);
+        sub.get(0, dst, 0, 10);
+        assertThat(dst[0],is(10 * 0.25));
+
+        boolean exception = false;
+        try {
+            array.get(95, dst, 0, 10);
+        } catch (IndexOutOfBoundsException e) {
+            exception = true;
+        }
+        assertTrue(exception);
+    }
+
+    private static final int BENCHMARK_LENGTH = 1000000;
+
+    /**
+     * Compares the bulk copies with per-element access over the same 1M element array.
+     * Per-element access takes far too long for every run, so this is a benchmark, run only
+     * when asked with the instrumentation argument: -e benchmark true
+     */
+    @Test
+    public void testBulkCopyBenchmark() throws Exception {
+        assumeTrue("benchmark", Boolean.parseBoolean(
+                InstrumentationRegistry.getArguments().getString("benchmark")));
+
+        JSFloat64Array array = new JSFloat64Array(context,BENCHMARK_LENGTH);
+        double [] values = new double[BENCHMARK_LENGTH];
+        for (int i=0; i<values.length; i++) values[i] = i;
+
+        long start = System.nanoTime();
+        array.set(0, values, 0, values.length);
+        long bulkSet = System.nanoTime() - start;
+
+        double [] out = new double[BENCHMARK_LENGTH];
+        start = System.nanoTime();
+        array.get(0, out, 0, out.length);
+        long bulkGet = System.nanoTime() - start;
+        assertArrayEquals(values, out, 0.0);
+
+        // The per-element path, one trip to JavaScriptCore per element
+        double [] each = new double[BENCHMARK_LENGTH];
+        start = System.nanoTime();
+        for (int i=0; i<each.length; i++) each[i] = array.get(i);
+        long perElement = System.nanoTime() - start;
+        assertArrayEquals(values, each, 0.0);
+
+        Log.i("JSFloat64ArrayTest", BENCHMARK_LENGTH + " elements: set() " + bulkSet / 1000000 +
+                " ms, get() " + bulkGet / 1000000 + " ms, per-element get(i) " +
+                perElement / 1000000 + " ms");
+    }
+}
@@ -411,6 +411,30 @@ public class JSFunctionTest {
         assertEquals(string1,string2);
     }
 
+    @org.junit.Test
+    public void testNestedCallbacks() throws Exception {
+        final JSContext context = new JSContext();
+        // Both functions take the same number of arguments, so the inner callback runs
+        // while the outer one is still active on the same thread
+        context.property("inner", new JSFunction(context, "inner") {
+            @SuppressWarnings("unused")
+            public int inner(int a, int b) {
+                return a * b;
+            }
+        });
+        context.property("outer", new JSFunction(context, "outer") {
+            @SuppressWarnings("unused")
+            public int outer(int a, int b) {
+                int product = context.evaluateScript("inner(" + (a+1) + "," + (b+1) + ")")
+                        .toNumber().intValue();
+                return a + b + product;
+            }
+        });
+        for (int i=0; i<1000; i++) {
+            assertEquals(5 + 12, context.evaluateScript("outer(2,3)").toNumber().intValue());
+        }
+    }
+
     /* Should raise NoSuchMethodException */
     public /* do not make it static! */ class TestInstance2 extends JSObject {
     }
@@ -3,6 +3,11 @@ package org.liquidplayer.webkit.javascriptcore;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -72,4 +77,35 @@ public class JSONTest {
         JSValue v5 = JSON.parse(context,"x,z,1");
         assertTrue(v5.isNull());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testStreaming() throws Exception {
+        context.evaluateScript("var doc = []; for (var i=0; i<20000; i++) " +
+                "doc.push({id:i, name:'item\u00e9\uD83D\uDE00' + i});");
+        JSValue doc = context.property("doc");
+        String json = doc.toJSON();
+
+        StringWriter writer = new StringWriter();
+        JSON.stringify(doc, writer);
+        assertEquals(json, writer.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JSON.stringify(doc, Channels.newChannel(bytes));
+        assertEquals(json, bytes.toString("UTF-8"));
+
+        JSValue v1 = JSON.parse(context, new StringReader(json));
+        assertEquals(20000, v1.toJSArray().size());
+        assertEquals(json, v1.toJSON());
+
+        JSValue v2 = JSON.parse(context,
+                Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(json, v2.toJSON());
+
+        StringWriter undefined = new StringWriter();
+        assertFalse(new JSValue(context).toJSON(undefined, 0));
+        assertEquals("", undefined.toString());
+
+        assertTrue(JSON.parse(context, new StringReader("x,z,1")).isNull());
+        assertTrue(JSON.parse(context, new StringReader("")).isNull());
+    }
+}
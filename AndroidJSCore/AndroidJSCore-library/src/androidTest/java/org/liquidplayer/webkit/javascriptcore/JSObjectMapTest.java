@@ -0,0 +1,60 @@
+package org.liquidplayer.webkit.javascriptcore;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.*;
+
+public class JSObjectMapTest {
+
+    @Test
+    public void testPutGetRemove() throws Exception {
+        JSContext context = new JSContext();
+        JSObjectMap map = new JSObjectMap();
+        final int count = 1000;
+        JSObject [] objects = new JSObject[count];
+        @SuppressWarnings("unchecked")
+        WeakReference<JSObject> [] refs = new WeakReference[count];
+        for (int i=0; i<count; i++) {
+            objects[i] = new JSObject(context);
+            refs[i] = new WeakReference<>(objects[i]);
+            // Aligned, pointer-like keys
+            map.put(0x10000L + i * 16L, refs[i]);
+        }
+        assertEquals(count, map.size());
+        for (int i=0; i<count; i++) {
+            assertTrue(map.get(0x10000L + i * 16L) == objects[i]);
+        }
+        assertNull(map.get(0x8L));
+
+        // Only the expected mapping is removed
+        assertFalse(map.remove(0x10000L, new WeakReference<>(objects[0])));
+        assertTrue(map.get(0x10000L) == objects[0]);
+
+        for (int i=0; i<count; i+=2) {
+            assertTrue(map.remove(0x10000L + i * 16L, refs[i]));
+        }
+        assertEquals(count / 2, map.size());
+        for (int i=0; i<count; i++) {
+            if (i % 2 == 0) assertNull(map.get(0x10000L + i * 16L));
+            else assertTrue(map.get(0x10000L + i * 16L) == objects[i]);
+        }
+
+        // Replacing a mapping
+        WeakReference<JSObject> replacement = new WeakReference<>(objects[0]);
+        map.put(0x10000L + 16L, replacement);
+        assertFalse(map.remove(0x10000L + 16L, refs[1]));
+        assertTrue(map.remove(0x10000L + 16L, replacement));
+    }
+
+    @Test
+    public void testIdentity() throws Exception {
+        JSContext context = new JSContext();
+        JSObject object = new JSObject(context);
+        context.property("obj", object);
+        for (int i=0; i<100; i++) {
+            assertTrue(context.property("obj").toObject() == object);
+        }
+    }
+}
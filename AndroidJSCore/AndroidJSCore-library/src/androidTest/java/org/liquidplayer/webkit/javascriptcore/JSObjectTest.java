@@ -368,6 +368,28 @@ public class JSObjectTest {
         assertTrue(exception);
     }
 
+    @Test
+    public void testInternedPropertyNames() throws Exception {
+        assertTrue(JSValue.JSString.intern("foo") == JSValue.JSString.intern("foo"));
+        assertEquals("foo", JSValue.JSString.intern("foo").toString());
+
+        JSContext context = new JSContext();
+        JSObject object = new JSObject(context);
+        // More distinct names than the cache holds, so that some are evicted and recreated
+        for (int pass=0; pass<2; pass++) {
+            for (int i=0; i<1000; i++) {
+                object.property("p" + i, i);
+            }
+            for (int i=0; i<1000; i++) {
+                assertTrue(object.hasProperty("p" + i));
+                assertEquals(i, object.property("p" + i).toNumber().intValue());
+            }
+            Runtime.getRuntime().gc();
+        }
+        assertTrue(object.deleteProperty("p0"));
+        assertFalse(object.hasProperty("p0"));
+    }
+
     @org.junit.After
     public void shutDown() {
         Runtime.getRuntime().gc();
@@ -0,0 +1,87 @@
+package org.liquidplayer.webkit.javascriptcore;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JSReclaimerTest {
+
+    private void churn(JSContext context, int count) {
+        for (int i=0; i<count; i++) {
+            new JSValue(context, i);
+            new JSObject(context);
+        }
+    }
+
+    @Test
+    public void testReclaim() throws Exception {
+        JSContext context = new JSContext();
+        JSReclaimer reclaimer = context.reclaimer();
+        assertEquals(JSReclaimer.DEFAULT_DRAIN_BATCH_SIZE, reclaimer.getDrainBatchSize());
+
+        churn(context, 1000);
+        assertTrue(reclaimer.tracked() >= 0);
+
+        for (int i=0; i<10 && reclaimer.drained() == 0; i++) {
+            Runtime.getRuntime().gc();
+            Thread.sleep(100);
+            // Any operation on the context gives the reclaimer a chance to drain
+            context.property("foo", i);
+        }
+        assertTrue(reclaimer.drained() > 0);
+        assertTrue(reclaimer.maxLatency() >= reclaimer.lastLatency());
+        assertTrue(reclaimer.lastLatency() >= 0);
+
+        // The context must be unaffected
+        context.evaluateScript("var x = 10");
+        assertEquals(10, context.property("x").toNumber().intValue());
+    }
+
+    @Test
+    public void testDrainBatchSize() throws Exception {
+        JSContext context = new JSContext();
+        JSReclaimer reclaimer = context.reclaimer();
+        reclaimer.setDrainBatchSize(1);
+        assertEquals(1, reclaimer.getDrainBatchSize());
+        try {
+            reclaimer.setDrainBatchSize(0);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertEquals(1, reclaimer.getDrainBatchSize());
+        }
+
+        churn(context, 500);
+        Runtime.getRuntime().gc();
+        Thread.sleep(100);
+        for (int i=0; i<10; i++) {
+            context.property("foo", i);
+        }
+        assertEquals(9, context.property("foo").toNumber().intValue());
+    }
+
+    @Test
+    public void testObjectIdentity() throws Exception {
+        JSContext context = new JSContext();
+        JSObject object = new JSObject(context);
+        context.property("obj", object);
+        churn(context, 500);
+        Runtime.getRuntime().gc();
+        Thread.sleep(100);
+        context.property("foo", 1);
+        // A live wrapper stays mapped to its reference
+        assertTrue(context.property("obj").toObject() == object);
+    }
+
+    @Test
+    public void testContextReclaimed() throws Exception {
+        for (int i=0; i<10; i++) {
+            JSContext context = new JSContext();
+            churn(context, 100);
+        }
+        Runtime.getRuntime().gc();
+        Thread.sleep(100);
+        JSContext context = new JSContext();
+        context.evaluateScript("var x = 10");
+        assertEquals(10, context.property("x").toNumber().intValue());
+    }
+}
@@ -0,0 +1,84 @@
+package org.liquidplayer.webkit.javascriptcore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JSScopeTest {
+
+    private JSContext context;
+
+    @Before
+    public void setUp() throws Exception {
+        context = new JSContext();
+    }
+
+    @Test
+    public void testScope() throws Exception {
+        // Strings, since numbers are held without a JavaScriptCore reference
+        context.evaluateScript("var arr = []; for (var i=0; i<1000; i++) arr.push('' + i);");
+        JSObject array = context.property("arr").toObject();
+        double sum = 0;
+        JSScope scope = context.scope();
+        try {
+            for (int i=0; i<1000; i++) {
+                sum += array.propertyAtIndex(i).toNumber();
+            }
+            assertTrue(scope.size() >= 1000);
+        } finally {
+            scope.close();
+        }
+        assertEquals(0, scope.size());
+        assertEquals(999.0 * 1000.0 / 2.0, sum, 0.0);
+
+        // Closing again does nothing, and the context is still usable
+        scope.close();
+        assertEquals(3.0, context.evaluateScript("arr[3]").toNumber(), 0.0);
+        context.garbageCollect();
+    }
+
+    @Test
+    public void testNestedScopes() throws Exception {
+        JSScope outer = context.scope();
+        new JSValue(context, "1");
+        JSScope inner = context.scope();
+        new JSValue(context, "2");
+        new JSValue(context, "3");
+        // Immediate values hold nothing to release
+        new JSValue(context, 4);
+        assertEquals(1, outer.size());
+        assertEquals(2, inner.size());
+
+        // Closing the outer scope closes the inner one too
+        outer.close();
+        assertEquals(0, inner.size());
+        new JSValue(context, "4");
+        assertEquals(0, outer.size());
+        context.garbageCollect();
+    }
+
+    @Test
+    public void testObjectsNotScoped() throws Exception {
+        JSScope scope = context.scope();
+        JSObject object = new JSObject(context);
+        object.property("a", 1);
+        scope.close();
+        assertEquals(1, object.property("a").toNumber().intValue());
+    }
+
+    @Test
+    public void testEscape() throws Exception {
+        JSValue kept;
+        JSScope scope = context.scope();
+        try {
+            new JSValue(context, "dropped");
+            kept = scope.escape(new JSValue(context, "kept"));
+            assertEquals(1, scope.size());
+        } finally {
+            scope.close();
+        }
+        context.garbageCollect();
+        assertEquals("kept", kept.toString());
+    }
+}
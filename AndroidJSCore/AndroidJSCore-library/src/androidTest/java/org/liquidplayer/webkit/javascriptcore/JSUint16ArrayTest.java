@@ -278,4 +278,17 @@ public class JSUint16ArrayTest {
             assertThat(exception,is(true));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBulkCopy() throws Exception {
+        JSUint16Array array = new JSUint16Array(context,4);
+        array.set(0, new short[] {1, (short) 0xffff, 3, 4}, 0, 4);
+        assertThat(array.get(1).intValue() & 0xffff,is(0xffff));
+        assertThat(array.property("1").toNumber().intValue(),is(0xffff));
+
+        short [] dst = new short[4];
+        array.get(0, dst, 0, 4);
+        assertThat(dst[1] & 0xffff,is(0xffff));
+        assertThat(dst[3],is((short) 4));
+    }
+}
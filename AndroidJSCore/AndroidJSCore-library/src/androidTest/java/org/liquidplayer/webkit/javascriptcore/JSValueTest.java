@@ -1,6 +1,12 @@
 package org.liquidplayer.webkit.javascriptcore;
 
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -310,6 +316,233 @@ public class JSValueTest {
         assertThat(array.toJSArray().size(),is(0));
     }
 
+    @org.junit.Test
+    public void testUTF16Strings() throws Exception {
+        JSContext context = new JSContext();
+        // Embedded NUL and a supplementary character (surrogate pair)
+        String s = "a\u0000b\uD83D\uDE00c\u00e9";
+        JSValue value = new JSValue(context, s);
+        assertEquals(s, value.toString());
+        assertEquals(s.length(), value.toJSString().length());
+
+        CharBuffer heap = CharBuffer.allocate(16);
+        heap.put('x');
+        assertEquals(s.length(), value.toString(heap));
+        heap.flip();
+        assertEquals("x" + s, heap.toString());
+
+        CharBuffer direct = ByteBuffer.allocateDirect(32).order(ByteOrder.nativeOrder())
+                .asCharBuffer();
+        assertEquals(s.length(), value.toString(direct));
+        direct.flip();
+        assertEquals(s, direct.toString());
+
+        // Too small a buffer gets a truncated copy, and the full length is reported
+        CharBuffer small = CharBuffer.allocate(3);
+        assertEquals(s.length(), value.toString(small));
+        assertEquals(0, small.remaining());
+        small.flip();
+        assertEquals(s.substring(0,3), small.toString());
+
+        // Large strings
+        context.evaluateScript("var big = new Array(100001).join('\u00e9\uD83D\uDE00');");
+        JSValue big = context.property("big");
+        CharBuffer buffer = CharBuffer.allocate(300000);
+        assertEquals(300000, big.toString(buffer));
+        assertEquals('\u00e9', buffer.get(0));
+        assertEquals('\uDE00', buffer.get(299999));
+        assertEquals(300000, big.toString().length());
+    }
+
+    @org.junit.Test
+    public void testStringsOnAnyThread() throws Exception {
+        final JSContext context = new JSContext();
+        final boolean [] ok = new boolean[4];
+        Thread [] threads = new Thread[ok.length];
+        for (int t=0; t<threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    boolean result = true;
+                    for (int i=0; i<1000; i++) {
+                        String s = "thread" + id + "_" + i;
+                        result &= s.equals(new JSValue.JSString(s).toString());
+                    }
+                    ok[id] = result;
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        for (boolean result : ok) assertTrue(result);
+
+        // Strings created outside of the context are usable within it
+        JSObject object = new JSObject(context);
+        object.property("name", "value");
+        assertEquals("value", object.property("name").toString());
+    }
+
+    @org.junit.Test
+    public void testDeepConversion() throws Exception {
+        JSContext context = new JSContext();
+        Map<String,Object> root = new HashMap<>();
+        List<Object> list = new ArrayList<>();
+        list.add(1);
+        list.add("two");
+        list.add(3.5f);
+        list.add(null);
+        list.add(new Object[] { true, new HashMap<String,Object>() });
+        root.put("list", list);
+        root.put("value", new JSValue(context, "wrapped"));
+        // Immediate values, held without a JavaScriptCore reference
+        root.put("number", new JSValue(context, 5));
+        root.put("flag", new JSValue(context, true));
+        root.put("self", root);
+        list.add(list);
+
+        JSValue value = new JSValue(context, root);
+        context.property("root", value);
+        assertEquals(1, context.evaluateScript("root.list[0]").toNumber().intValue());
+        assertEquals("two", context.evaluateScript("root.list[1]").toString());
+        assertEquals(3.5, context.evaluateScript("root.list[2]").toNumber(), 0);
+        assertTrue(context.evaluateScript("root.list[3] === null").toBoolean());
+        assertTrue(context.evaluateScript("root.list[4][0]").toBoolean());
+        assertEquals("wrapped", context.evaluateScript("root.value").toString());
+        assertEquals(5, context.evaluateScript("root.number").toNumber().intValue());
+        assertTrue(context.evaluateScript("root.flag === true").toBoolean());
+        // Cycles become references back to the ancestor
+        assertTrue(context.evaluateScript("root.self === root").toBoolean());
+        assertTrue(context.evaluateScript("root.list[5] === root.list").toBoolean());
+
+        // Depth limit
+        context.setMaxConversionDepth(3);
+        assertEquals(3, context.getMaxConversionDepth());
+        List<Object> deep = new ArrayList<>();
+        deep.add(new ArrayList<>(Collections.singletonList(
+                new ArrayList<>(Collections.singletonList(new ArrayList<>())))));
+        try {
+            new JSValue(context, deep);
+            assertTrue(false);
+        } catch (JSException e) {
+            assertTrue(e.getMessage().contains("depth"));
+        }
+        context.setMaxConversionDepth(JSContext.DEFAULT_MAX_CONVERSION_DEPTH);
+
+        // A 10k node tree
+        Map<String,Object> config = new HashMap<>();
+        for (int i=0; i<100; i++) {
+            Map<String,Object> section = new HashMap<>();
+            for (int j=0; j<100; j++) {
+                section.put("key" + j, (j % 2 == 0) ? "value" + j : j);
+            }
+            config.put("section" + i, section);
+        }
+        long start = System.nanoTime();
+        context.property("config", new JSValue(context, config));
+        Log.i("JSValueTest", "10k node conversion: " + (System.nanoTime() - start) / 1000000 +
+                "ms");
+        assertEquals(51, context.evaluateScript("config.section99.key51").toNumber().intValue());
+        assertEquals("value50", context.evaluateScript("config.section0.key50").toString());
+    }
+
+    @org.junit.Test
+    public void testConverters() throws Exception {
+        JSContext context = new JSContext();
+        JSValue number = new JSValue(context, 300.75);
+        assertEquals(300.75, JSConverter.forClass(double.class).convert(number));
+        assertEquals(300.75f, JSConverter.forClass(Float.class).convert(number));
+        assertEquals(300, JSConverter.forClass(int.class).convert(number));
+        assertEquals(300L, JSConverter.forClass(Long.class).convert(number));
+        assertEquals((short)300, JSConverter.forClass(short.class).convert(number));
+        assertEquals((byte)44, JSConverter.forClass(Byte.class).convert(number));
+        assertEquals(true, JSConverter.forClass(boolean.class).convert(number));
+        assertEquals("300.75", JSConverter.forClass(String.class).convert(number));
+        assertTrue(JSConverter.forClass(Object.class).convert(number) == number);
+        assertNull(JSConverter.forClass(Thread.class).convert(number));
+
+        JSValue array = context.evaluateScript("[1,2,3]");
+        assertArrayEquals(new Integer[] {1,2,3},
+                (Integer[]) JSConverter.forClass(Integer[].class).convert(array));
+        assertEquals(3, ((List)JSConverter.forClass(List.class).convert(array)).size());
+        assertTrue(JSConverter.forClass(JSObject.class).convert(array) instanceof JSArray);
+        // toJavaObject() is the same conversion
+        assertEquals(300, number.toJavaObject(Integer.class));
+    }
+
+    @org.junit.Test
+    public void testTypeTag() throws Exception {
+        JSContext context = new JSContext();
+        String [] scripts = { "undefined", "null", "true", "42", "'str'", "({})", "[1]",
+                "new Date()" };
+        int [] types = { JSValue.TYPE_UNDEFINED, JSValue.TYPE_NULL, JSValue.TYPE_BOOLEAN,
+                JSValue.TYPE_NUMBER, JSValue.TYPE_STRING, JSValue.TYPE_OBJECT,
+                JSValue.TYPE_OBJECT, JSValue.TYPE_OBJECT };
+        for (int i=0; i<scripts.length; i++) {
+            JSValue value = context.evaluateScript(scripts[i]);
+            assertEquals(scripts[i], types[i], value.type());
+            assertEquals(i == 0, value.isUndefined());
+            assertEquals(i == 1, value.isNull());
+            assertEquals(i == 2, value.isBoolean());
+            assertEquals(i == 3, value.isNumber());
+            assertEquals(i == 4, value.isString());
+            assertEquals(i >= 5, value.isObject());
+            assertEquals(i == 6, value.isArray());
+            assertEquals(i == 7, value.isDate());
+        }
+
+        // Types known at creation need no native call, and agree with JavaScriptCore
+        assertEquals(JSValue.TYPE_NUMBER, new JSValue(context, 1).type());
+        assertEquals(JSValue.TYPE_STRING, new JSValue(context, "s").type());
+        assertEquals(JSValue.TYPE_BOOLEAN, new JSValue(context, false).type());
+        assertEquals(JSValue.TYPE_NULL, new JSValue(context, null).type());
+        assertEquals(JSValue.TYPE_UNDEFINED, new JSValue(context).type());
+
+        assertEquals(new JSValue(context, "abc").hashCode(), "abc".hashCode());
+        assertEquals(0, new JSValue(context).hashCode());
+        assertNull(new JSValue(context, 5).toFunction());
+    }
+
+    @org.junit.Test
+    public void testImmediateValues() throws Exception {
+        JSContext context = new JSContext();
+        JSReclaimer reclaimer = context.reclaimer();
+        JSObject array = context.evaluateScript("[1,2,3]").toObject();
+        int tracked = reclaimer.tracked();
+        JSValue number = new JSValue(context, 42);
+        JSValue fraction = new JSValue(context, 0.5);
+        JSValue bool = new JSValue(context, true);
+        JSValue nul = new JSValue(context, null);
+        JSValue undefined = new JSValue(context);
+        JSValue length = array.property("length");
+        // None of these hold a JavaScriptCore reference
+        assertTrue(reclaimer.tracked() <= tracked);
+
+        assertEquals(3, length.toNumber().intValue());
+        assertEquals("42", number.toString());
+        assertEquals("0.5", fraction.toString());
+        assertEquals("true", bool.toString());
+        assertEquals("null", nul.toString());
+        assertEquals("undefined", undefined.toString());
+        assertTrue(bool.toBoolean());
+        assertFalse(nul.toBoolean());
+        assertFalse(undefined.toBoolean());
+        assertTrue(Double.isNaN(undefined.toNumber()));
+        assertTrue(number.isStrictEqual(new JSValue(context, 42.0)));
+        assertFalse(number.isStrictEqual(new JSValue(context, "42")));
+        assertTrue(number.isEqual(new JSValue(context, "42")));
+        assertTrue(nul.isEqual(undefined));
+        assertFalse(nul.isStrictEqual(undefined));
+        assertEquals("-0", context.evaluateScript("(function(x) { return 1/x < 0 ? '-0' : '0'; })")
+                .toFunction().call(null, -0.0).toString());
+
+        // Values are materialized when JavaScript needs them
+        context.property("n", number);
+        assertEquals(43, context.evaluateScript("n + 1").toNumber().intValue());
+        assertTrue(number.valueRef() != 0);
+        assertEquals(42, number.toNumber().intValue());
+    }
+
     @org.junit.After
     public void shutDown() {
         Runtime.getRuntime().gc();
@@ -88,7 +88,9 @@ public class JSArray<T> extends JSBaseArray<T> {
         for (int i=0; i<array.length; i++) {
             valueRefs[i] = array[i].valueRef();
         }
-        valueRef = testException(makeArray(context.ctxRef(), valueRefs));
+        JNIReturnObject jni = new JNIReturnObject();
+        makeArray(context.ctxRef(), valueRefs, jni);
+        valueRef = testException(jni);
         context.persistObject(this);
     }
 
@@ -101,7 +103,9 @@ public class JSArray<T> extends JSBaseArray<T> {
     public JSArray(JSContext ctx, Class<T> cls) {
         super(ctx,cls);
         long [] valueRefs = new long[0];
-        valueRef = testException(makeArray(context.ctxRef(), valueRefs));
+        JNIReturnObject jni = new JNIReturnObject();
+        makeArray(context.ctxRef(), valueRefs, jni);
+        valueRef = testException(jni);
         context.persistObject(this);
     }
 
@@ -113,17 +117,88 @@ public class JSArray<T> extends JSBaseArray<T> {
      * @param cls  The class of the component objects
      * @since 3.0
      */
-    public JSArray(JSContext ctx, Object [] array, Class<T> cls) {
+    public JSArray(JSContext ctx, final Object [] array, Class<T> cls) {
         super(ctx,cls);
-        long [] valueRefs = new long[array.length];
+        // Strings, booleans and numbers are converted natively; anything else is converted
+        // here first, and kept reachable until the array has been made
+        final JSValue [] converted = new JSValue[array.length];
+        final long [] valueRefs = new long[array.length];
         for (int i=0; i<array.length; i++) {
-            JSValue v = new JSValue(context,array[i]);
-            valueRefs[i] = v.valueRef();
+            Object element = array[i];
+            if (element instanceof JSValue) {
+                valueRefs[i] = ((JSValue) element).valueRef();
+            } else if (!(element == null || element instanceof String ||
+                    element instanceof Boolean || element instanceof Double ||
+                    element instanceof Integer || element instanceof Long ||
+                    element instanceof Short || element instanceof Byte)) {
+                converted[i] = new JSValue(context,element);
+                valueRefs[i] = converted[i].valueRef();
+            }
         }
-        valueRef = testException(makeArray(context.ctxRef(), valueRefs));
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override
+            public void run() {
+                makeArrayFrom(context.ctxRef(), array, valueRefs, this);
+            }
+        };
+        context.sync(runnable);
+        valueRef = testException(runnable);
+        context.persistObject(this);
+    }
+
+    /**
+     * Creates a JavaScript array of numbers from 'array' in a single native call
+     * @param ctx  The JSContext to create the array in
+     * @param array  The values with which to initialize the JavaScript array object
+     * @param cls  The class of the component objects
+     * @since 3.1
+     */
+    public JSArray(JSContext ctx, double [] array, Class<T> cls) {
+        super(ctx,cls);
+        valueRef = makeFromPrimitives(array, KIND_DOUBLE);
+        context.persistObject(this);
+    }
+
+    /**
+     * Creates a JavaScript array of numbers from 'array' in a single native call
+     * @param ctx  The JSContext to create the array in
+     * @param array  The values with which to initialize the JavaScript array object
+     * @param cls  The class of the component objects
+     * @since 3.1
+     */
+    public JSArray(JSContext ctx, int [] array, Class<T> cls) {
+        super(ctx,cls);
+        valueRef = makeFromPrimitives(array, KIND_INT);
         context.persistObject(this);
     }
 
+    /**
+     * Creates a JavaScript array of booleans from 'array' in a single native call
+     * @param ctx  The JSContext to create the array in
+     * @param array  The values with which to initialize the JavaScript array object
+     * @param cls  The class of the component objects
+     * @since 3.1
+     */
+    public JSArray(JSContext ctx, boolean [] array, Class<T> cls) {
+        super(ctx,cls);
+        valueRef = makeFromPrimitives(array, KIND_BOOLEAN);
+        context.persistObject(this);
+    }
+
+    private abstract class JNIReturnClass extends JNIReturnObject implements Runnable {
+    }
+
+    private long makeFromPrimitives(final Object array, final int kind) {
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override
+            public void run() {
+                makeArrayFromPrimitives(context.ctxRef(), array, kind, this);
+            }
+        };
+        context.sync(runnable);
+        return testException(runnable);
+    }
+
     @SuppressWarnings("unchecked")
     protected JSArray(long valueRef, JSContext ctx) {
         super(valueRef,ctx,(Class<T>)JSValue.class);
@@ -201,6 +276,11 @@ public class JSArray<T> extends JSBaseArray<T> {
 
     /** JavaScript methods **/
 
+    private static JSFunction arrayFrom(JSContext ctx) {
+        return ctx.helper("_ArrayFrom",new String[] {"arrayLike","mapFn","thisArg"},
+                "return Array.from(arrayLike,mapFn,thisArg);");
+    }
+
     /**
      * JavaScript Array.from(), see:
      * https://developer.mozilla.org/en-US/docs/Web/JavaScript/Reference/Global_Objects/Array/from
@@ -213,7 +293,7 @@ public class JSArray<T> extends JSBaseArray<T> {
      */
     @SuppressWarnings("unchecked")
     public static JSArray<JSValue> from(JSContext ctx, Object arrayLike, JSFunction mapFn, JSObject thiz) {
-        JSFunction from = ctx.property("Array").toObject().property("from").toFunction();
+        JSFunction from = arrayFrom(ctx);
         return (JSArray) from.call(null,arrayLike,mapFn,thiz).toJSArray();
     }
     /**
@@ -227,7 +307,7 @@ public class JSArray<T> extends JSBaseArray<T> {
      */
     @SuppressWarnings("unchecked")
     public static JSArray<JSValue> from(JSContext ctx, Object arrayLike, JSFunction mapFn) {
-        JSFunction from = ctx.property("Array").toObject().property("from").toFunction();
+        JSFunction from = arrayFrom(ctx);
         return (JSArray) from.call(null,arrayLike,mapFn).toJSArray();
     }
     /**
@@ -240,7 +320,7 @@ public class JSArray<T> extends JSBaseArray<T> {
      */
     @SuppressWarnings("unchecked")
     public static JSArray<JSValue> from(JSContext ctx, Object arrayLike) {
-        JSFunction from = ctx.property("Array").toObject().property("from").toFunction();
+        JSFunction from = arrayFrom(ctx);
         return (JSArray) from.call(null,arrayLike).toJSArray();
     }
     /**
@@ -255,7 +335,7 @@ public class JSArray<T> extends JSBaseArray<T> {
     @SuppressWarnings("unchecked")
     public static JSArray<JSValue> from(JSContext ctx, Object arrayLike,
                                         final MapCallback<JSValue> mapFn) {
-        JSFunction from = ctx.property("Array").toObject().property("from").toFunction();
+        JSFunction from = arrayFrom(ctx);
         return (JSArray)  from.call(null,arrayLike,new JSFunction(ctx,"_callback") {
             @SuppressWarnings("unused")
             public JSValue _callback(JSValue currentValue, int index, JSArray array) {
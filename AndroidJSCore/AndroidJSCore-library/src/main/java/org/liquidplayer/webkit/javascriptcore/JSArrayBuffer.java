@@ -32,6 +32,8 @@
 */
 package org.liquidplayer.webkit.javascriptcore;
 
+import java.nio.ByteBuffer;
+
 /**
  * A wrapper class for a JavaScript ArrayBuffer
  * See: https://developer.mozilla.org/en-US/docs/Web/JavaScript/Reference/Global_Objects/ArrayBuffer
@@ -46,9 +48,8 @@ public class JSArrayBuffer extends JSObjectWrapper {
      * @since 3.0
      */
     public JSArrayBuffer(JSContext ctx, int length) {
-        super(new JSFunction(ctx,"_ArrayBuffer",new String[] {"length"},
-                "return new ArrayBuffer(length);",
-                null, 0).call(null,length).toObject());
+        super(ctx.helper("_ArrayBuffer",new String[] {"length"},
+                "return new ArrayBuffer(length);").call(null,length).toObject());
     }
 
     /**
@@ -107,4 +108,25 @@ public class JSArrayBuffer extends JSObjectWrapper {
         return new JSArrayBuffer(
                 property("slice").toFunction().call(this,begin).toObject());
     }
+
+    /**
+     * Copies the contents of this ArrayBuffer into a new direct ByteBuffer in native byte
+     * order, using a single trip to the JavaScript thread.  The buffer is a snapshot; changes
+     * to it are not reflected in the ArrayBuffer until written back with write().
+     * @return a direct buffer of byteLength() bytes
+     * @since 3.1
+     */
+    public ByteBuffer toByteBuffer() {
+        return new JSUint8Array(this).toByteBuffer();
+    }
+
+    /**
+     * Copies bytes from 'src' into this ArrayBuffer, starting at byte 0, using a single trip
+     * to the JavaScript thread.  The buffer's position is not changed.
+     * @param src  the buffer to copy from
+     * @since 3.1
+     */
+    public void write(ByteBuffer src) {
+        new JSUint8Array(this).write(src);
+    }
 }
@@ -82,12 +82,122 @@ public abstract class JSBaseArray<T> extends JSFunction implements List<T> {
         int count = size();
 
         Object [] array = (Object[]) Array.newInstance(clazz,count);
-        for (int i=0; i<count; i++) {
-            array[i] = elementAtIndex(i).toJavaObject(clazz);
+        if (isNumberClass(clazz)) {
+            double [] numbers = toDoubleArray();
+            for (int i=0; i<numbers.length && i<count; i++) {
+                array[i] = toJavaNumber(numbers[i], clazz);
+            }
+        } else if (clazz == Boolean.class) {
+            boolean [] booleans = toBooleanArray();
+            for (int i=0; i<booleans.length && i<count; i++) {
+                array[i] = booleans[i];
+            }
+        } else if (clazz == String.class) {
+            String [] strings = toStringArray();
+            System.arraycopy(strings, 0, array, 0, Math.min(strings.length, count));
+        } else if (clazz == Object.class || clazz == JSValue.class) {
+            JSValue [] values = toJSValues();
+            System.arraycopy(values, 0, array, 0, Math.min(values.length, count));
+        } else {
+            for (int i=0; i<count; i++) {
+                array[i] = elementAs(i, clazz);
+            }
         }
         return array;
     }
 
+    /* Array kinds for bulk conversion, see JSBaseArray.cpp */
+    static final int KIND_DOUBLE = 0;
+    static final int KIND_INT = 1;
+    static final int KIND_BOOLEAN = 2;
+    static final int KIND_STRING = 3;
+    static final int KIND_VALUE = 4;
+
+    private void copyElementsTo(final int kind, final Object dst, final int count) {
+        final int offset = elementOffset();
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override
+            public void run() {
+                copyElementsTo(context.ctxRef(), valueRef, offset, count, kind, dst, this);
+            }
+        };
+        context.sync(runnable);
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+        }
+    }
+
+    /**
+     * Converts every element to a number, as JSValue.toNumber() would, in a single native call
+     * @return the elements as a double array
+     * @since 3.1
+     */
+    public double[] toDoubleArray() {
+        double [] array = new double[size()];
+        copyElementsTo(KIND_DOUBLE, array, array.length);
+        return array;
+    }
+
+    /**
+     * Converts every element to an int, as JSValue.toNumber().intValue() would, in a single
+     * native call
+     * @return the elements as an int array
+     * @since 3.1
+     */
+    public int[] toIntArray() {
+        int [] array = new int[size()];
+        copyElementsTo(KIND_INT, array, array.length);
+        return array;
+    }
+
+    /**
+     * Converts every element to a boolean, as JSValue.toBoolean() would, in a single native call
+     * @return the elements as a boolean array
+     * @since 3.1
+     */
+    public boolean[] toBooleanArray() {
+        boolean [] array = new boolean[size()];
+        copyElementsTo(KIND_BOOLEAN, array, array.length);
+        return array;
+    }
+
+    /**
+     * Converts every element to a string, as JSValue.toString() would, in a single native call
+     * @return the elements as a String array
+     * @since 3.1
+     */
+    public String[] toStringArray() {
+        String [] array = new String[size()];
+        copyElementsTo(KIND_STRING, array, array.length);
+        return array;
+    }
+
+    /* Wraps every element in a JSValue, in a single trip to the JavaScript thread */
+    private JSValue[] toJSValues() {
+        final int offset = elementOffset();
+        final int count = size();
+        final JSValue [] values = new JSValue[count];
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override
+            public void run() {
+                long [] refs = new long[count];
+                copyElementsTo(context.ctxRef(), valueRef, offset, count, KIND_VALUE, refs, this);
+                int n = 0;
+                while (n < count && refs[n] != 0) {
+                    values[n] = new JSValue(refs[n], context);
+                    n++;
+                }
+                // The JSValues hold their own protection now
+                unprotectAll(context.ctxRef(), refs, n);
+            }
+        };
+        context.sync(runnable);
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+        }
+        return values;
+    }
+
     /**
      * Extracts Java JSValue array from JavaScript array
      * @see List#toArray()
@@ -112,7 +222,7 @@ public abstract class JSBaseArray<T> extends JSFunction implements List<T> {
         if (index >= count) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        return (T) elementAtIndex(index).toJavaObject(mType);
+        return (T) elementAs(index, mType);
     }
 
     /**
@@ -135,7 +245,18 @@ public abstract class JSBaseArray<T> extends JSFunction implements List<T> {
     @Override
     public int size() {
         if (mSuperList == null) {
-            return property("length").toNumber().intValue();
+            JNIReturnClass runnable = new JNIReturnClass() {
+                @Override
+                public void run() {
+                    getLength(context.ctxRef(), valueRef, this);
+                }
+            };
+            context.sync(runnable);
+            if (runnable.exception != 0) {
+                context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+                return 0;
+            }
+            return (int) runnable.number;
         } else {
             return Math.max(0, mSuperList.size() - mLeftBuffer - mRightBuffer);
         }
@@ -157,12 +278,90 @@ public abstract class JSBaseArray<T> extends JSFunction implements List<T> {
     }
 
     protected void elementAtIndex(final int index, final T value) {
-        if (mSuperList == null)
+        if (value instanceof Double || value instanceof Float || value instanceof Integer ||
+                value instanceof Long || value instanceof Short || value instanceof Byte) {
+            numberAtIndex(index, ((Number) value).doubleValue());
+        } else if (mSuperList == null)
             arrayElement(index, value);
         else
             mSuperList.elementAtIndex(index + mLeftBuffer, value);
     }
 
+    private abstract class JNIReturnClass extends JNIReturnObject implements Runnable {
+    }
+
+    /* The element offset of this (sub)list in the underlying JavaScript array */
+    int elementOffset() {
+        int offset = 0;
+        for (JSBaseArray<T> list = this; list.mSuperList != null; list = list.mSuperList) {
+            offset += list.mLeftBuffer;
+        }
+        return offset;
+    }
+
+    private static boolean isNumberClass(Class<?> clazz) {
+        return clazz == Double.class || clazz == double.class ||
+                clazz == Float.class || clazz == float.class ||
+                clazz == Integer.class || clazz == int.class ||
+                clazz == Long.class || clazz == long.class ||
+                clazz == Byte.class || clazz == byte.class ||
+                clazz == Short.class || clazz == short.class;
+    }
+
+    /* Converts as JSValue.toJavaObject() would convert a JSValue holding 'number' */
+    private static Object toJavaNumber(double number, Class<?> clazz) {
+        if (clazz == Double.class || clazz == double.class)
+            return number;
+        else if (clazz == Float.class || clazz == float.class)
+            return (float) number;
+        else if (clazz == Integer.class || clazz == int.class)
+            return (int) number;
+        else if (clazz == Long.class || clazz == long.class)
+            return (long) number;
+        else if (clazz == Byte.class || clazz == byte.class)
+            return (byte) number;
+        else
+            return (short) number;
+    }
+
+    /**
+     * Gets the element at 'index' converted to 'clazz', without bounds checking.  Numeric
+     * elements are fetched as a primitive in a single native call, without creating a JSValue.
+     */
+    private Object elementAs(final int index, Class<?> clazz) {
+        if (!isNumberClass(clazz)) {
+            return elementAtIndex(index).toJavaObject(clazz);
+        }
+        final int absolute = elementOffset() + index;
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override
+            public void run() {
+                getNumberAtIndex(context.ctxRef(), valueRef, absolute, this);
+            }
+        };
+        context.sync(runnable);
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+            return toJavaNumber(Double.NaN, clazz);
+        }
+        return toJavaNumber(runnable.number, clazz);
+    }
+
+    /* Sets the element at 'index' to a number in a single native call */
+    private void numberAtIndex(final int index, final double number) {
+        final int absolute = elementOffset() + index;
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override
+            public void run() {
+                setNumberAtIndex(context.ctxRef(), valueRef, absolute, number, this);
+            }
+        };
+        context.sync(runnable);
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+        }
+    }
+
     /**
      * @see List#isEmpty() ()
      * @since 3.0
@@ -178,8 +377,9 @@ public abstract class JSBaseArray<T> extends JSFunction implements List<T> {
      */
     @Override
     public boolean contains(final Object object) {
-        for (int i=0; i<size(); i++) {
-            if(get(i).equals(object))
+        int count = size();
+        for (int i=0; i<count; i++) {
+            if(elementAs(i, mType).equals(object))
                 return true;
         }
         return false;
@@ -188,19 +388,22 @@ public abstract class JSBaseArray<T> extends JSFunction implements List<T> {
     private class ArrayIterator implements ListIterator<T> {
         private int current = 0;
         private Integer modifiable = null;
+        // The length is read once, and again only after the iterator itself modifies the array
+        private int count;
 
         public ArrayIterator() {
             this(0);
         }
         public ArrayIterator(int index) {
-            if (index > size()) index = size();
+            count = size();
+            if (index > count) index = count;
             if (index < 0) index = 0;
             current = index;
         }
 
         @Override
         public boolean hasNext() {
-            return (current < size());
+            return (current < count);
         }
 
         @Override
@@ -209,19 +412,21 @@ public abstract class JSBaseArray<T> extends JSFunction implements List<T> {
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public T next() {
             if (!hasNext())
                 throw new NoSuchElementException();
             modifiable = current;
-            return get(current++);
+            return (T) elementAs(current++, mType);
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public T previous() {
             if (!hasPrevious())
                 throw new NoSuchElementException();
             modifiable = --current;
-            return get(current);
+            return (T) elementAs(current, mType);
         }
 
         @Override
@@ -232,6 +437,7 @@ public abstract class JSBaseArray<T> extends JSFunction implements List<T> {
             JSBaseArray.this.remove(modifiable.intValue());
             current = modifiable;
             modifiable = null;
+            count = size();
         }
 
         @Override
@@ -256,6 +462,7 @@ public abstract class JSBaseArray<T> extends JSFunction implements List<T> {
         public void add(T value) {
             JSBaseArray.this.add(current++,value);
             modifiable = null;
+            count = size();
         }
     }
 
@@ -523,4 +730,16 @@ public abstract class JSBaseArray<T> extends JSFunction implements List<T> {
         }
         return hashCode;
     }
+
+    protected static native void getLength(long ctx, long object, JNIReturnObject out);
+    protected static native void getNumberAtIndex(long ctx, long object, int index,
+                                                  JNIReturnObject out);
+    protected static native void setNumberAtIndex(long ctx, long object, int index, double value,
+                                                  JNIReturnObject out);
+    protected static native void makeArrayFrom(long ctx, Object[] values, long[] valueRefs,
+                                               JNIReturnObject out);
+    protected static native void makeArrayFromPrimitives(long ctx, Object values, int kind,
+                                                         JNIReturnObject out);
+    protected static native void copyElementsTo(long ctx, long object, int offset, int count,
+                                                int kind, Object dst, JNIReturnObject out);
 }
@@ -0,0 +1,240 @@
+//
+// JSBatch.java
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package org.liquidplayer.webkit.javascriptcore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records a sequence of property gets, property sets and function calls and executes
+ * them together in a single trip to the context's JavaScript thread.  Obtain a batch
+ * with JSContext.batch().
+ * Example:
+ * <pre>
+ * {@code
+ * JSValue [] results = context.batch()
+ *     .property(obj, "name")
+ *     .property(obj, "count", 50)
+ *     .call(func, null, 1, 2)
+ *     .execute();
+ * }
+ * </pre>
+ * @since 3.1
+ */
+public class JSBatch {
+
+    private abstract class Operation {
+        Operation(boolean hasResult) {
+            this.hasResult = hasResult;
+        }
+        final boolean hasResult;
+
+        /**
+         * Executes the operation.  Must be called on the context's JavaScript thread.
+         * @param out  receives the native result of the operation
+         */
+        abstract void execute(JSValue.JNIReturnObject out);
+    }
+
+    private final JSContext context;
+    private final List<Operation> operations = new ArrayList<>();
+
+    protected JSBatch(JSContext ctx) {
+        context = ctx;
+    }
+
+    /**
+     * Adds a property get to the batch.  Its result slot will contain the value of the
+     * property.
+     * @param object  The object to get the property from
+     * @param prop  The name of the property to fetch
+     * @return this batch
+     * @since 3.1
+     */
+    public JSBatch property(final JSObject object, final String prop) {
+        operations.add(new Operation(true) {
+            @Override
+            void execute(JSValue.JNIReturnObject out) {
+                object.getProperty(context.ctxRef(), object.valueRef(),
+                        JSValue.JSString.intern(prop).stringRef(), out);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Adds a property set to the batch.  Its result slot will be null.
+     * @param object  The object on which to set the property
+     * @param prop  The name of the property to set
+     * @param value  The Java object to set.  The Java object will be converted to a JavaScript
+     *               object automatically.
+     * @param attributes  And OR'd list of JSProperty constants
+     * @return this batch
+     * @since 3.1
+     */
+    public JSBatch property(final JSObject object, final String prop, final Object value,
+                            final int attributes) {
+        operations.add(new Operation(false) {
+            @Override
+            void execute(JSValue.JNIReturnObject out) {
+                object.setProperty(context.ctxRef(), object.valueRef(),
+                        JSValue.JSString.intern(prop).stringRef(), valueRefOf(value), attributes, out);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Adds a property set to the batch.  No JSProperty attributes are set.  Its result
+     * slot will be null.
+     * @param object  The object on which to set the property
+     * @param prop  The name of the property to set
+     * @param value  The Java object to set.  The Java object will be converted to a JavaScript
+     *               object automatically.
+     * @return this batch
+     * @since 3.1
+     */
+    public JSBatch property(final JSObject object, final String prop, final Object value) {
+        return property(object, prop, value, JSObject.JSPropertyAttributeNone);
+    }
+
+    /**
+     * Adds an indexed property get to the batch.  Its result slot will contain the value
+     * at 'index'.
+     * @param object  The object (usually an array) to get the property from
+     * @param index  The index of the property
+     * @return this batch
+     * @since 3.1
+     */
+    public JSBatch propertyAtIndex(final JSObject object, final int index) {
+        operations.add(new Operation(true) {
+            @Override
+            void execute(JSValue.JNIReturnObject out) {
+                object.getPropertyAtIndex(context.ctxRef(), object.valueRef(), index, out);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Adds an indexed property set to the batch.  Its result slot will be null.
+     * @param object  The object (usually an array) on which to set the property
+     * @param index  The index of the property to set
+     * @param value  The Java object to set, will be automatically converted to a JavaScript value
+     * @return this batch
+     * @since 3.1
+     */
+    public JSBatch propertyAtIndex(final JSObject object, final int index, final Object value) {
+        operations.add(new Operation(false) {
+            @Override
+            void execute(JSValue.JNIReturnObject out) {
+                object.setPropertyAtIndex(context.ctxRef(), object.valueRef(), index,
+                        valueRefOf(value), out);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Adds a function call to the batch, similar to 'Function.call()' in JavaScript.  Its
+     * result slot will contain the value returned by the function.
+     * @param function  The function to call
+     * @param thiz  The 'this' object on which the function operates, null if not on a constructor object
+     * @param args  The argument list to be passed to the function
+     * @return this batch
+     * @since 3.1
+     */
+    public JSBatch call(final JSFunction function, final JSObject thiz, final Object ... args) {
+        operations.add(new Operation(true) {
+            @Override
+            void execute(JSValue.JNIReturnObject out) {
+                function.callAsFunction(context.ctxRef(), function.valueRef(),
+                        (thiz==null) ? 0L : thiz.valueRef(), function.argsToValueRefs(args), out);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Gets the number of operations recorded in this batch
+     * @return the number of recorded operations
+     * @since 3.1
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    private abstract class BatchReturnClass implements Runnable {
+        JSValue [] results;
+        long exception = 0L;
+    }
+
+    /**
+     * Executes all recorded operations, in order, in a single trip to the JavaScript thread.
+     * If an operation throws, the remaining operations are skipped and the exception is
+     * thrown (or passed to the context's exception handler).
+     * @return an array with one entry per recorded operation, in recording order.  Entries
+     * for property sets, and for any operations skipped due to an exception, are null.
+     * @since 3.1
+     */
+    public JSValue [] execute() {
+        BatchReturnClass runnable = new BatchReturnClass() {
+            @Override
+            public void run() {
+                results = new JSValue[operations.size()];
+                JSValue.JNIReturnObject jni = new JSValue.JNIReturnObject();
+                for (int i=0; i<results.length; i++) {
+                    Operation operation = operations.get(i);
+                    operation.execute(jni);
+                    if (jni.exception != 0) {
+                        exception = jni.exception;
+                        break;
+                    }
+                    if (operation.hasResult) {
+                        results[i] = new JSValue(jni.reference, context);
+                    }
+                }
+            }
+        };
+        context.sync(runnable);
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+        }
+        return runnable.results;
+    }
+
+    private long valueRefOf(Object value) {
+        return (value instanceof JSValue) ? ((JSValue) value).valueRef() :
+                new JSValue(context, value).valueRef();
+    }
+}
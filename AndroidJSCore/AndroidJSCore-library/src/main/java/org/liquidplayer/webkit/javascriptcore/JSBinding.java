@@ -0,0 +1,174 @@
+//
+// JSBinding.java
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package org.liquidplayer.webkit.javascriptcore;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Calls the methods of an exported interface without reflection.  Subclasses are generated
+ * at compile time, one per interface annotated with JSExport, and are named after the
+ * interface's binary name with BINDING_SUFFIX appended.  A binding is a static table of
+ * method names plus a switch that unmarshals the arguments of, and calls, the method at
+ * a given index.
+ * @since 3.1
+ */
+public abstract class JSBinding {
+    /**
+     * Appended to the binary name of an exported interface to name its binding
+     * @since 3.1
+     */
+    public static final String BINDING_SUFFIX = "$$JSBinding";
+
+    private final String [] names;
+
+    protected JSBinding(String ... names) {
+        this.names = names;
+    }
+
+    /**
+     * Gets the number of methods in the binding
+     * @return the number of methods
+     * @since 3.1
+     */
+    public final int size() {
+        return names.length;
+    }
+
+    /**
+     * Gets the name of the method at 'index'
+     * @param index  the index of the method
+     * @return the method name
+     * @since 3.1
+     */
+    public final String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * Calls the method at 'index' on 'target'
+     * @param index  the index of the method
+     * @param target  the object implementing the interface
+     * @param context  the context in which the function was called
+     * @param args  the JavaScript arguments
+     * @return the return value of the method as a JSValue
+     */
+    protected abstract JSValue invoke(int index, Object target, JSContext context,
+                                      JSValue [] args);
+
+    /* Argument unmarshalling.  As with reflection, missing arguments are null, or zero and
+     * false for primitives. */
+
+    private static JSValue at(JSValue [] args, int index) {
+        return (index < args.length) ? args[index] : null;
+    }
+    protected static boolean booleanArg(JSValue [] args, int index) {
+        JSValue arg = at(args, index);
+        return arg != null && arg.toBoolean();
+    }
+    protected static double doubleArg(JSValue [] args, int index) {
+        JSValue arg = at(args, index);
+        return (arg == null) ? 0 : arg.toDouble();
+    }
+    protected static float floatArg(JSValue [] args, int index) {
+        return (float) doubleArg(args, index);
+    }
+    protected static long longArg(JSValue [] args, int index) {
+        return (long) doubleArg(args, index);
+    }
+    protected static int intArg(JSValue [] args, int index) {
+        return (int) doubleArg(args, index);
+    }
+    protected static short shortArg(JSValue [] args, int index) {
+        return (short) intArg(args, index);
+    }
+    protected static byte byteArg(JSValue [] args, int index) {
+        return (byte) intArg(args, index);
+    }
+    protected static String stringArg(JSValue [] args, int index) {
+        JSValue arg = at(args, index);
+        return (arg == null) ? null : arg.toString();
+    }
+    protected static JSValue valueArg(JSValue [] args, int index) {
+        return at(args, index);
+    }
+    protected static Object arg(JSValue [] args, int index, Class<?> clazz) {
+        JSValue arg = at(args, index);
+        return (arg == null) ? null : arg.toJavaObject(clazz);
+    }
+
+    /* Return value marshalling */
+
+    protected static JSValue undefined(JSContext context) {
+        return new JSValue(context);
+    }
+    protected static JSValue value(JSContext context, Object value) {
+        if (value == null) return new JSValue(context);
+        if (value instanceof JSValue) return (JSValue) value;
+        return new JSValue(context, value);
+    }
+
+    /* Reports a checked exception thrown by an exported method, as reflection does */
+    protected static JSValue exception(JSContext context, Throwable e) {
+        context.throwJSException(new JSException(context, e.toString()));
+        return new JSValue(context);
+    }
+
+    /* Marks interfaces that have no generated binding */
+    private static final Object NONE = new Object();
+    private static final ConcurrentMap<Class<?>,Object> bindings = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the generated binding for 'iface', loading it on first use
+     * @param iface  the exported interface
+     * @return the binding, or null if none was generated
+     */
+    static JSBinding forInterface(Class<?> iface) {
+        Object binding = bindings.get(iface);
+        if (binding == null) {
+            try {
+                binding = Class.forName(iface.getName() + BINDING_SUFFIX, true,
+                        iface.getClassLoader()).newInstance();
+            } catch (ClassNotFoundException e) {
+                binding = NONE;
+            } catch (InstantiationException e) {
+                binding = NONE;
+            } catch (IllegalAccessException e) {
+                binding = NONE;
+            }
+            Object previous = bindings.putIfAbsent(iface, binding);
+            if (previous != null) binding = previous;
+        }
+        return (binding == NONE) ? null : (JSBinding) binding;
+    }
+}
@@ -32,26 +32,24 @@
 */
 package org.liquidplayer.webkit.javascriptcore;
 
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Wraps a JavaScriptCore context 
  */
 public class JSContext extends JSObject {
 
-    private final JSWorkerQueue mWorker = new JSWorkerQueue(new Runnable() {
-        @Override
-        public void run() {
-            if (deadReferences.size() > 100) {
-                cleanDeadReferences();
-            }
-        }
-    });
+    private final JSObjectMap objects = new JSObjectMap();
+    private final JSReclaimer reclaimer = new JSReclaimer(objects);
+
+    private final JSWorkerQueue mWorker = new JSWorkerQueue(reclaimer.monitor, reclaimer.idle);
 
     protected void sync(Runnable runnable) {
         mWorker.sync(runnable);
@@ -62,19 +60,113 @@ public class JSContext extends JSObject {
 
     public final Object mMutex = new Object();
 
-    private final List<Long> deadReferences = new ArrayList<>();
+    protected void markForUnprotection(long valueR) {
+        reclaimer.markForUnprotection(valueR);
+    }
 
-    protected void markForUnprotection(Long valueR) {
-        synchronized (mMutex) {
-            deadReferences.add(valueR);
-        }
+    /**
+     * Gets the reclaimer which releases the references held by this context's values once
+     * they are no longer reachable from Java
+     * @return this context's reclaimer
+     * @since 3.1
+     */
+    public JSReclaimer reclaimer() {
+        return reclaimer;
     }
-    private void cleanDeadReferences() {
-        synchronized (mMutex) {
-            for (Long reference : deadReferences) {
-                unprotect(ctxRef(), reference);
+
+    void register(JSValue value) {
+        reclaimer.track(value, null);
+        addToScope(value);
+    }
+    void untrack(JSValue value) {
+        reclaimer.untrack(value);
+    }
+
+    /**
+     * Releases a context once it has been collected, from a single daemon thread, instead of
+     * from a finalizer.  The reference holds no strong reference to the context itself; the
+     * reclaimer and worker queue do not reference it either.
+     */
+    private static class ContextReference extends JSReclaimer.Handle<JSContext> {
+        private static final ReferenceQueue<JSContext> queue = new ReferenceQueue<>();
+        private static final JSReclaimer.HandleList contexts = new JSReclaimer.HandleList();
+        private static Thread reaper = null;
+
+        private ContextReference(JSContext context) {
+            super(context, queue, context.ctx);
+            reclaimer = context.reclaimer;
+            worker = context.mWorker;
+        }
+        private final JSReclaimer reclaimer;
+        private final JSWorkerQueue worker;
+
+        static void track(JSContext context) {
+            contexts.add(new ContextReference(context));
+            synchronized (ContextReference.class) {
+                if (reaper == null) {
+                    reaper = new Thread("JSContextReaper") {
+                        @Override
+                        public void run() {
+                            while (true) {
+                                try {
+                                    ContextReference reference = (ContextReference) queue.remove();
+                                    if (contexts.remove(reference)) {
+                                        reference.dispose();
+                                    }
+                                } catch (InterruptedException e) {
+                                    return;
+                                }
+                            }
+                        }
+                    };
+                    reaper.setDaemon(true);
+                    reaper.start();
+                }
             }
-            deadReferences.clear();
+        }
+
+        private void dispose() {
+            reclaimer.drainAll();
+            reclaimer.detach();
+            JSContext.release(ref);
+            worker.quit();
+        }
+    }
+
+    private void track() {
+        reclaimer.attach(ctx);
+        ContextReference.track(this);
+    }
+
+    private final ThreadLocal<JSScope> currentScope = new ThreadLocal<>();
+    private final AtomicInteger openScopes = new AtomicInteger();
+
+    /**
+     * Opens a new scope on the calling thread.  JSValues created by this thread until the
+     * scope is closed are released together when it is closed.  Scopes may be nested.
+     * @return the new scope
+     * @since 3.1
+     */
+    public JSScope scope() {
+        JSScope scope = new JSScope(this, currentScope.get());
+        currentScope.set(scope);
+        openScopes.incrementAndGet();
+        return scope;
+    }
+    void endScope(JSScope scope) {
+        JSScope inner = currentScope.get();
+        while (inner != null && inner != scope) {
+            inner.close();
+            inner = currentScope.get();
+        }
+        currentScope.set(scope.parent);
+        openScopes.decrementAndGet();
+    }
+    void addToScope(JSValue value) {
+        if (openScopes.get() == 0 || value instanceof JSObject) return;
+        JSScope scope = currentScope.get();
+        if (scope != null) {
+            scope.add(value);
         }
     }
 
@@ -105,6 +197,7 @@ public class JSContext extends JSObject {
                 static_init();
                 ctx = create();
                 valueRef = getGlobalObject(ctx);
+                track();
             }
         });
     }
@@ -120,6 +213,7 @@ public class JSContext extends JSObject {
                 static_init();
                 ctx = createInGroup(inGroup.groupRef());
                 valueRef = getGlobalObject(ctx);
+                track();
             }
         });
     }
@@ -136,11 +230,8 @@ public class JSContext extends JSObject {
                 static_init();
                 ctx = create();
                 valueRef = getGlobalObject(ctx);
-                Method[] methods = iface.getDeclaredMethods();
-                for (Method m : methods) {
-                    JSObject f = new JSFunction(context, m, JSObject.class, context);
-                    property(m.getName(),f);
-                }
+                track();
+                exportMethods(iface);
             }
         });
     }
@@ -159,25 +250,11 @@ public class JSContext extends JSObject {
                 static_init();
                 ctx = createInGroup(inGroup.groupRef());
                 valueRef = getGlobalObject(ctx);
-                Method[] methods = iface.getDeclaredMethods();
-                for (Method m : methods) {
-                    JSObject f = new JSFunction(context, m, JSObject.class, context);
-                    property(m.getName(),f);
-                }
+                track();
+                exportMethods(iface);
             }
         });
     }
-    @Override
-    protected void finalize() throws Throwable {
-        super.finalize();
-        cleanDeadReferences();
-        isDefunct = true;
-        release(ctx);
-        if (mWorker != null) {
-            mWorker.quit();
-        }
-    }
-
     /**
      * Sets the JS exception handler for this context.  Any thrown JSException in this
      * context will call the 'handle' method on this object.  The calling function will
@@ -217,6 +294,36 @@ public class JSContext extends JSObject {
         }
     }
 
+    /**
+     * The default maximum nesting depth of Java Maps, Lists and arrays converted to
+     * JavaScript
+     * @since 3.1
+     */
+    public static final int DEFAULT_MAX_CONVERSION_DEPTH = 64;
+
+    private volatile int maxConversionDepth = DEFAULT_MAX_CONVERSION_DEPTH;
+
+    /**
+     * Sets how deeply Java Maps, Lists and arrays may be nested when converted to JavaScript
+     * values in this context.  Converting a deeper graph throws a RangeError JSException.
+     * @param maxDepth  the maximum nesting depth, at least 1
+     * @since 3.1
+     */
+    public void setMaxConversionDepth(int maxDepth) {
+        if (maxDepth < 1) throw new IllegalArgumentException("maxDepth must be at least 1");
+        maxConversionDepth = maxDepth;
+    }
+
+    /**
+     * Gets how deeply Java Maps, Lists and arrays may be nested when converted to JavaScript
+     * values in this context
+     * @return  the maximum nesting depth
+     * @since 3.1
+     */
+    public int getMaxConversionDepth() {
+        return maxConversionDepth;
+    }
+
     /**
      * Gets the context group to which this context belongs.
      * @return  The context group to which this context belongs
@@ -235,8 +342,7 @@ public class JSContext extends JSObject {
         return ctx;
     }
 
-    private abstract class JNIReturnClass implements Runnable {
-        JNIReturnObject jni;
+    private abstract class JNIReturnClass extends JNIReturnObject implements Runnable {
     }
 
     /**
@@ -255,19 +361,19 @@ public class JSContext extends JSObject {
             @Override public void run() {
                 JSString jsscript = new JSString(script);
                 JSString jssourceURL = new JSString(sourceURL);
-                jni = evaluateScript(ctx, jsscript.stringRef(),
+                evaluateScript(ctx, jsscript.stringRef(),
                         (thiz == null) ? 0L : thiz.valueRef(),
                         jssourceURL.stringRef(),
-                        startingLineNumber);
+                        startingLineNumber, this);
             }
         };
         sync(runnable);
 
-        if (runnable.jni.exception!=0) {
-            throwJSException(new JSException(new JSValue(runnable.jni.exception, context)));
+        if (runnable.exception!=0) {
+            throwJSException(new JSException(new JSValue(runnable.exception, context)));
             return new JSValue(this);
         }
-        return new JSValue(runnable.jni.reference,this);
+        return new JSValue(runnable.reference,this);
     }
 
     /**
@@ -290,7 +396,209 @@ public class JSContext extends JSObject {
         return evaluateScript(script,null,null,0);
     }
 
-    private Map<Long,WeakReference<JSObject>> objects = new HashMap<>();
+    /**
+     * The default number of compiled scripts cached by JSContext.compile()
+     * @since 3.1
+     */
+    public static final int DEFAULT_SCRIPT_CACHE_CAPACITY = 64;
+
+    private static class ScriptKey {
+        ScriptKey(String script, String sourceURL, int startingLineNumber) {
+            this.script = script;
+            this.sourceURL = sourceURL;
+            this.startingLineNumber = startingLineNumber;
+            int h = script.hashCode();
+            h = 31 * h + (sourceURL == null ? 0 : sourceURL.hashCode());
+            hash = 31 * h + startingLineNumber;
+        }
+
+        private final String script;
+        private final String sourceURL;
+        private final int startingLineNumber;
+        private final int hash;
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof ScriptKey)) return false;
+            ScriptKey key = (ScriptKey) other;
+            return hash == key.hash && startingLineNumber == key.startingLineNumber &&
+                    (sourceURL == null ? key.sourceURL == null : sourceURL.equals(key.sourceURL)) &&
+                    script.equals(key.script);
+        }
+    }
+
+    private int scriptCacheCapacity = DEFAULT_SCRIPT_CACHE_CAPACITY;
+    private int scriptCacheHits = 0;
+    private int scriptCacheMisses = 0;
+    private final Map<ScriptKey,JSScript> scripts =
+            new LinkedHashMap<ScriptKey,JSScript>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ScriptKey,JSScript> eldest) {
+                    return size() > scriptCacheCapacity;
+                }
+            };
+
+    /**
+     * Compiles the JavaScript code in 'script' for repeated evaluation in this context.  The
+     * syntax is checked once, and the script's source is handed to JavaScriptCore once, rather
+     * than on every evaluation.  Compiled scripts are kept in a least-recently-used cache, so
+     * compiling the same source again returns the same JSScript.
+     * @param script  The code to compile
+     * @param sourceURL  The URI of the source file, only used for reporting in stack trace (optional)
+     * @param startingLineNumber  The beginning line number, only used for reporting in stack trace (optional)
+     * @return  The compiled script, or null if it has a syntax error and the exception handler
+     * does not throw
+     * @since 3.1
+     */
+    public JSScript compile(final String script, final String sourceURL,
+            final int startingLineNumber) {
+        final ScriptKey key = new ScriptKey(script, sourceURL, startingLineNumber);
+        synchronized (scripts) {
+            JSScript compiled = scripts.get(key);
+            if (compiled != null) {
+                scriptCacheHits++;
+                return compiled;
+            }
+            scriptCacheMisses++;
+        }
+
+        final JSScript compiled = new JSScript(this, script, sourceURL, startingLineNumber);
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override public void run() {
+                checkScriptSyntax(ctx, compiled.script.stringRef(), compiled.url.stringRef(),
+                        startingLineNumber, this);
+            }
+        };
+        sync(runnable);
+
+        if (runnable.exception!=0) {
+            throwJSException(new JSException(new JSValue(runnable.exception, context)));
+            return null;
+        }
+        synchronized (scripts) {
+            // Another thread may have compiled the same script meanwhile; either will do
+            scripts.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Compiles the JavaScript code in 'script' for repeated evaluation in this context
+     * @param script  The code to compile
+     * @param sourceURL  The URI of the source file, only used for reporting in stack trace (optional)
+     * @return  The compiled script
+     * @since 3.1
+     */
+    public JSScript compile(String script, String sourceURL) {
+        return compile(script, sourceURL, 0);
+    }
+
+    JSValue evaluateScript(final JSScript script, final JSObject thiz) {
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override public void run() {
+                evaluateScript(ctx, script.script.stringRef(),
+                        (thiz == null) ? 0L : thiz.valueRef(),
+                        script.url.stringRef(),
+                        script.getStartingLineNumber(), this);
+            }
+        };
+        sync(runnable);
+
+        if (runnable.exception!=0) {
+            throwJSException(new JSException(new JSValue(runnable.exception, context)));
+            return new JSValue(this);
+        }
+        return new JSValue(runnable.reference,this);
+    }
+
+    /**
+     * Sets how many compiled scripts JSContext.compile() keeps.  Least recently used scripts
+     * are evicted first.
+     * @param capacity  the number of scripts to keep, or 0 to disable caching
+     * @since 3.1
+     */
+    public void setScriptCacheCapacity(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity must not be negative");
+        synchronized (scripts) {
+            scriptCacheCapacity = capacity;
+            Iterator<ScriptKey> it = scripts.keySet().iterator();
+            for (int n = scripts.size() - capacity; n > 0; n--) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets how many compiled scripts JSContext.compile() keeps
+     * @return  the script cache's capacity
+     * @since 3.1
+     */
+    public int getScriptCacheCapacity() {
+        synchronized (scripts) {
+            return scriptCacheCapacity;
+        }
+    }
+
+    /**
+     * Gets the number of calls to JSContext.compile() answered from the script cache
+     * @return  the number of cache hits
+     * @since 3.1
+     */
+    public int getScriptCacheHits() {
+        synchronized (scripts) {
+            return scriptCacheHits;
+        }
+    }
+
+    /**
+     * Gets the number of calls to JSContext.compile() that had to compile their script
+     * @return  the number of cache misses
+     * @since 3.1
+     */
+    public int getScriptCacheMisses() {
+        synchronized (scripts) {
+            return scriptCacheMisses;
+        }
+    }
+
+    /**
+     * Creates a new, empty batch.  Operations recorded on the batch are executed together
+     * in a single trip to this context's JavaScript thread when JSBatch.execute() is called.
+     * @return a new JSBatch for this context
+     * @since 3.1
+     */
+    public JSBatch batch() {
+        return new JSBatch(this);
+    }
+
+    private final ConcurrentMap<String,JSFunction> helpers = new ConcurrentHashMap<>();
+
+    /**
+     * Gets an internal helper function, compiling it on first use.  Helpers are held for the
+     * lifetime of the context, so that later calls pay only for the call and never for
+     * parsing.  Helpers are keyed by 'body', which must therefore fully determine the function.
+     * @param name  the function's name
+     * @param parameterNames  the function's parameter names
+     * @param body  the function's body
+     * @return the compiled helper
+     */
+    JSFunction helper(String name, String[] parameterNames, String body) {
+        JSFunction function = helpers.get(body);
+        if (function == null) {
+            // Compile outside of any lock; a lost race only costs an extra compilation
+            function = new JSFunction(this, name, parameterNames, body, null, 0);
+            JSFunction existing = helpers.putIfAbsent(body, function);
+            if (existing != null) function = existing;
+        }
+        return function;
+    }
 
     /**
      * Keeps a reference to an object in this context.  This is used so that only one
@@ -300,17 +608,10 @@ public class JSContext extends JSObject {
      * @param obj  The object with which to associate with this context
      * @since 1.0
      */
-    protected synchronized  void persistObject(JSObject obj) {
-        objects.put(obj.valueRef(), new WeakReference<>(obj));
-    }
-    /**
-     * Removes a reference to an object in this context.  Should only be used from the 'finalize'
-     * object method.  This is handled by JSObject, and should not need to be called by clients.
-     * @param obj the JSObject to dereference
-     * @since 1.0
-     */
-    protected synchronized void finalizeObject(JSObject obj) {
-        objects.remove(obj.valueRef());
+    protected void persistObject(JSObject obj) {
+        WeakReference<JSObject> wr = new WeakReference<>(obj);
+        objects.put(obj.valueRef(), wr);
+        reclaimer.track(obj, wr);
     }
     /**
      * Reuses a stored reference to a JavaScript object if it exists, otherwise, it creates the
@@ -320,14 +621,11 @@ public class JSContext extends JSObject {
      * @since 1.0
      * @return The JSObject representing the reference
      */
-    protected synchronized JSObject getObjectFromRef(long objRef,boolean create) {
+    protected JSObject getObjectFromRef(long objRef,boolean create) {
         if (objRef == valueRef()) return this;
-        WeakReference<JSObject> wr = objects.get(objRef);
-        JSObject obj = null;
-        if (wr != null) {
-            obj = wr.get();
-            if (obj != null)
-                obj.unprotect(ctxRef(),obj.valueRef());
+        JSObject obj = objects.get(objRef);
+        if (obj != null) {
+            obj.unprotect(ctxRef(),obj.valueRef());
         }
         if (obj==null && create) {
             obj = new JSObject(objRef,this);
@@ -340,7 +638,7 @@ public class JSContext extends JSObject {
         }
         return obj;
     }
-    protected synchronized JSObject getObjectFromRef(long objRef) {
+    protected JSObject getObjectFromRef(long objRef) {
         return getObjectFromRef(objRef,true);
     }
     /**
@@ -357,16 +655,28 @@ public class JSContext extends JSObject {
         });
     }
 
+    /**
+     * Gets the number of times a native thread (for example, a JavaScriptCore garbage
+     * collection thread) has been attached to the Java VM in order to call back into Java.
+     * A thread is attached at most once and stays attached until it exits.
+     * @return  the number of thread attachments since the library was loaded
+     * @since 3.1
+     */
+    public static long attachCount() {
+        return getAttachCount();
+    }
+
     protected static native void staticInit();
+    protected static native long getAttachCount();
     protected native long create();
     protected native long createInGroup(long group);
     protected native long retain(long ctx);
-    protected native long release(long ctx);
+    protected static native void release(long ctx);
     protected native long getGroup(long ctx);
     protected native long getGlobalObject(long ctx);
-    protected native JNIReturnObject evaluateScript(long ctx, long script, long thisObject, long sourceURL, int startingLineNumber);
+    protected native void evaluateScript(long ctx, long script, long thisObject, long sourceURL, int startingLineNumber, JNIReturnObject out);
     @SuppressWarnings("unused")
-    protected native JNIReturnObject checkScriptSyntax(long ctx, long script, long sourceURL, int startingLineNumber);
+    protected native void checkScriptSyntax(long ctx, long script, long sourceURL, int startingLineNumber, JNIReturnObject out);
     protected native void garbageCollect(long ctx);
 
     static boolean isInit = false;
@@ -0,0 +1,189 @@
+//
+// JSConverter.java
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package org.liquidplayer.webkit.javascriptcore;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts a JSValue to a given Java type.  The type is examined once, when the converter is
+ * created, so that converting an argument on every call of a JSFunction involves no type
+ * dispatch.  Numeric conversions go through JSValue.toDouble(), which never boxes.
+ */
+abstract class JSConverter {
+    abstract Object convert(JSValue value);
+
+    /**
+     * Gets a converter for each parameter of 'method'
+     * @param method  the method whose parameters are converted
+     * @return an array of converters, one per parameter
+     */
+    static JSConverter [] forParameters(Method method) {
+        Class<?> [] types = method.getParameterTypes();
+        JSConverter [] converters = new JSConverter[types.length];
+        for (int i=0; i<types.length; i++) {
+            converters[i] = forClass(types[i]);
+        }
+        return converters;
+    }
+
+    /**
+     * Gets a converter to 'clazz', as described in JSValue.toJavaObject()
+     * @param clazz  the Java type to convert to
+     * @return the converter
+     */
+    static JSConverter forClass(final Class<?> clazz) {
+        if (clazz == Object.class)
+            return IDENTITY;
+        else if (clazz == Map.class)
+            return MAP;
+        else if (clazz == List.class)
+            return LIST;
+        else if (clazz == String.class)
+            return STRING;
+        else if (clazz == Double.class || clazz == double.class)
+            return DOUBLE;
+        else if (clazz == Float.class || clazz == float.class)
+            return FLOAT;
+        else if (clazz == Integer.class || clazz == int.class)
+            return INTEGER;
+        else if (clazz == Long.class || clazz == long.class)
+            return LONG;
+        else if (clazz == Byte.class || clazz == byte.class)
+            return BYTE;
+        else if (clazz == Short.class || clazz == short.class)
+            return SHORT;
+        else if (clazz == Boolean.class || clazz == boolean.class)
+            return BOOLEAN;
+        else if (clazz.isArray()) {
+            final Class<?> componentType = clazz.getComponentType();
+            return new JSConverter() {
+                @Override
+                Object convert(JSValue value) {
+                    return value.toJSArray().toArray(componentType);
+                }
+            };
+        }
+        else if (JSObject.class.isAssignableFrom(clazz)) {
+            return new JSConverter() {
+                @Override
+                Object convert(JSValue value) {
+                    return clazz.cast(value.toObject());
+                }
+            };
+        }
+        else if (JSValue.class.isAssignableFrom(clazz)) {
+            return new JSConverter() {
+                @Override
+                Object convert(JSValue value) {
+                    return clazz.cast(value);
+                }
+            };
+        }
+        return NULL;
+    }
+
+    private static final JSConverter IDENTITY = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return value;
+        }
+    };
+    private static final JSConverter MAP = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return new JSObjectPropertiesMap<>(value.toObject(), Object.class);
+        }
+    };
+    private static final JSConverter LIST = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return value.toJSArray();
+        }
+    };
+    private static final JSConverter STRING = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return value.toString();
+        }
+    };
+    private static final JSConverter DOUBLE = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return value.toDouble();
+        }
+    };
+    private static final JSConverter FLOAT = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return (float) value.toDouble();
+        }
+    };
+    private static final JSConverter INTEGER = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return (int) value.toDouble();
+        }
+    };
+    private static final JSConverter LONG = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return (long) value.toDouble();
+        }
+    };
+    private static final JSConverter BYTE = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return (byte) (int) value.toDouble();
+        }
+    };
+    private static final JSConverter SHORT = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return (short) (int) value.toDouble();
+        }
+    };
+    private static final JSConverter BOOLEAN = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return value.toBoolean();
+        }
+    };
+    private static final JSConverter NULL = new JSConverter() {
+        @Override
+        Object convert(JSValue value) {
+            return null;
+        }
+    };
+}
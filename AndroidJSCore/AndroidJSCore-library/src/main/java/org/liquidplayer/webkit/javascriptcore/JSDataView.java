@@ -45,11 +45,9 @@ public class JSDataView extends JSObjectWrapper {
      * @since 3.0
      */
     public JSDataView(JSArrayBuffer buffer) {
-        super(new JSFunction(buffer.getJSObject().getContext(),
+        super(buffer.getJSObject().getContext().helper(
                 "_DataView",new String[] {"buffer"},
-
-                "return new DataView(buffer);",
-                null, 0).call(null,buffer).toObject());
+                "return new DataView(buffer);").call(null,buffer).toObject());
     }
     /**
      * Creates a new DataView JavaScript object from ArrayBuffer 'buffer' starting from
@@ -59,11 +57,9 @@ public class JSDataView extends JSObjectWrapper {
      * @since 3.0
      */
     public JSDataView(JSArrayBuffer buffer, int byteOffset) {
-        super(new JSFunction(buffer.getJSObject().getContext(),
+        super(buffer.getJSObject().getContext().helper(
                 "_DataView1",new String[] {"buffer","byteOffset"},
-
-                "return new DataView(buffer,byteOffset);",
-                null, 0).call(null,buffer,byteOffset).toObject());
+                "return new DataView(buffer,byteOffset);").call(null,buffer,byteOffset).toObject());
     }
     /**
      * Creates a new DataView JavaScript object from ArrayBuffer 'buffer' starting from
@@ -74,11 +70,9 @@ public class JSDataView extends JSObjectWrapper {
      * @since 3.0
      */
     public JSDataView(JSArrayBuffer buffer, int byteOffset, int byteLength) {
-        super(new JSFunction(buffer.getJSObject().getContext(),
+        super(buffer.getJSObject().getContext().helper(
                 "_DataView2",new String[] {"buffer","byteOffset","byteLength"},
-
-                "return new DataView(buffer,byteOffset,byteLength);",
-                null, 0).call(null,buffer,byteOffset,byteLength).toObject());
+                "return new DataView(buffer,byteOffset,byteLength);").call(null,buffer,byteOffset,byteLength).toObject());
     }
 
     /**
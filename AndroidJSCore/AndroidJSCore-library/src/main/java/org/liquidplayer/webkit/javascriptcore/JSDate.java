@@ -47,7 +47,9 @@ public class JSDate extends JSObject {
      */
     public JSDate(JSContext ctx) {
         context = ctx;
-        valueRef = testException(this.makeDate(context.ctxRef(), new long[0]));
+        JNIReturnObject jni = new JNIReturnObject();
+        makeDate(context.ctxRef(), new long[0], jni);
+        valueRef = testException(jni);
         context.persistObject(this);
     }
     /**
@@ -60,7 +62,9 @@ public class JSDate extends JSObject {
         context = ctx;
         JSValue time = new JSValue(context, date.getTime());
         long [] args = { time.valueRef() };
-        valueRef = testException(this.makeDate(context.ctxRef(), args));
+        JNIReturnObject jni = new JNIReturnObject();
+        makeDate(context.ctxRef(), args, jni);
+        valueRef = testException(jni);
         context.persistObject(this);
     }
     /**
@@ -73,7 +77,9 @@ public class JSDate extends JSObject {
         context = ctx;
         JSValue time = new JSValue(context, epoch);
         long [] args = { time.valueRef() };
-        valueRef = testException(this.makeDate(context.ctxRef(), args));
+        JNIReturnObject jni = new JNIReturnObject();
+        makeDate(context.ctxRef(), args, jni);
+        valueRef = testException(jni);
         context.persistObject(this);
     }
 
@@ -89,7 +95,9 @@ public class JSDate extends JSObject {
         for (int i=0; i<7; i++) {
             if (i < params.length) p[i] = new JSValue(context, params[i]).valueRef();
         }
-        valueRef = testException(this.makeDate(context.ctxRef(), p));
+        JNIReturnObject jni = new JNIReturnObject();
+        makeDate(context.ctxRef(), p, jni);
+        valueRef = testException(jni);
         context.persistObject(this);
     }
 
@@ -48,9 +48,11 @@ public class JSError extends JSObject {
         long [] args = {
                 new JSValue(context,message).valueRef()
         };
-        JNIReturnObject jni = makeError(context.ctxRef(), args);
+        JNIReturnObject jni = new JNIReturnObject();
+        makeError(context.ctxRef(), args, jni);
         if (BuildConfig.DEBUG && jni.exception != 0) throw new AssertionError();
         valueRef = jni.reference;
+        context.register(this);
     }
     /**
      * Generates a JavaScript throwable exception object
@@ -59,9 +61,11 @@ public class JSError extends JSObject {
      */
     public JSError(JSContext ctx) {
         context = ctx;
-        JNIReturnObject jni = makeError(context.ctxRef(), new long[0]);
+        JNIReturnObject jni = new JNIReturnObject();
+        makeError(context.ctxRef(), new long[0], jni);
         if (BuildConfig.DEBUG && jni.exception != 0) throw new AssertionError();
         valueRef = jni.reference;
+        context.register(this);
     }
 
     /**
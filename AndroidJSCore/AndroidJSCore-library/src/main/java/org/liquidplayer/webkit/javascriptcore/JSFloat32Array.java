@@ -34,6 +34,8 @@ package org.liquidplayer.webkit.javascriptcore;
 
 import android.support.annotation.NonNull;
 
+import java.nio.FloatBuffer;
+
 /**
  * A convenience class for handling JavaScript's Float32Array
  * @since 3.0
@@ -46,7 +48,7 @@ public class JSFloat32Array extends JSTypedArray<Float> {
      * @since 3.0
      */
     public JSFloat32Array(JSContext ctx, int length) {
-        super(ctx,length,"Float32Array",Float.class);
+        super(ctx,length,"Float32Array",Float.class,TYPE_FLOAT32);
     }
 
     /**
@@ -55,7 +57,7 @@ public class JSFloat32Array extends JSTypedArray<Float> {
      * @since 3.0
      */
     public JSFloat32Array(JSTypedArray tarr) {
-        super(tarr,"Float32Array",Float.class);
+        super(tarr,"Float32Array",Float.class,TYPE_FLOAT32);
     }
 
     /**
@@ -65,7 +67,7 @@ public class JSFloat32Array extends JSTypedArray<Float> {
      * @since 3.0
      */
     public JSFloat32Array(JSContext ctx, Object object) {
-        super(ctx,object,"Float32Array",Float.class);
+        super(ctx,object,"Float32Array",Float.class,TYPE_FLOAT32);
     }
 
     /**
@@ -76,7 +78,7 @@ public class JSFloat32Array extends JSTypedArray<Float> {
      * @since 3.0
      */
     public JSFloat32Array(JSArrayBuffer buffer, int byteOffset, int length) {
-        super(buffer,byteOffset,length,"Float32Array",Float.class);
+        super(buffer,byteOffset,length,"Float32Array",Float.class,TYPE_FLOAT32);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -85,7 +87,7 @@ public class JSFloat32Array extends JSTypedArray<Float> {
      * @since 3.0
      */
     public JSFloat32Array(JSArrayBuffer buffer, int byteOffset) {
-        super(buffer,byteOffset,"Float32Array",Float.class);
+        super(buffer,byteOffset,"Float32Array",Float.class,TYPE_FLOAT32);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -93,7 +95,7 @@ public class JSFloat32Array extends JSTypedArray<Float> {
      * @since 3.0
      */
     public JSFloat32Array(JSArrayBuffer buffer) {
-        super(buffer,"Float32Array",Float.class);
+        super(buffer,"Float32Array",Float.class,TYPE_FLOAT32);
     }
 
     /**
@@ -103,7 +105,7 @@ public class JSFloat32Array extends JSTypedArray<Float> {
      * @since 3.0
      */
     public JSFloat32Array(long valueRef, JSContext ctx) {
-        super(valueRef,ctx,Float.class);
+        super(valueRef,ctx,Float.class,TYPE_FLOAT32);
     }
 
     /**
@@ -127,7 +129,7 @@ public class JSFloat32Array extends JSTypedArray<Float> {
     }
 
     private JSFloat32Array(JSFloat32Array superList, int leftBuffer, int rightBuffer) {
-        super(superList,leftBuffer,rightBuffer,Float.class);
+        super(superList,leftBuffer,rightBuffer,Float.class,TYPE_FLOAT32);
     }
     /**
      * @see java.util.List#subList(int, int)
@@ -141,4 +143,41 @@ public class JSFloat32Array extends JSTypedArray<Float> {
         }
         return new JSFloat32Array(this,fromIndex,size()-toIndex);
     }
+
+    /**
+     * Copies the contents of this array into a new direct FloatBuffer, using a single trip to the
+     * JavaScript thread.  The buffer is a snapshot; write changes back with write(ByteBuffer).
+     * @return a FloatBuffer view of a direct buffer in native byte order
+     * @since 3.1
+     */
+    public FloatBuffer toFloatBuffer() {
+        return toByteBuffer().asFloatBuffer();
+    }
+
+    /**
+     * Copies 'len' elements, starting at element 'offset', into 'dst' in a single native call
+     * @param offset  the first element of this array to copy
+     * @param dst  the array to copy to
+     * @param dstOff  the first index of 'dst' to copy to
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void get(int offset, float[] dst, int dstOff, int len) {
+        getElements(offset, dst, dstOff, len);
+    }
+
+    /**
+     * Copies 'len' elements from 'src' into this array, starting at element 'offset', in a
+     * single native call
+     * @param offset  the first element of this array to copy to
+     * @param src  the array to copy from
+     * @param srcOff  the first index of 'src' to copy from
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void set(int offset, float[] src, int srcOff, int len) {
+        setElements(offset, src, srcOff, len);
+    }
 }
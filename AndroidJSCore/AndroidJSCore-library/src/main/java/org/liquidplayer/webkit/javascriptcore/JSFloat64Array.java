@@ -34,6 +34,8 @@ package org.liquidplayer.webkit.javascriptcore;
 
 import android.support.annotation.NonNull;
 
+import java.nio.DoubleBuffer;
+
 /**
  * A convenience class for handling JavaScript's Float64Array
  * @since 3.0
@@ -46,7 +48,7 @@ public class JSFloat64Array extends JSTypedArray<Double> {
      * @since 3.0
      */
     public JSFloat64Array(JSContext ctx, int length) {
-        super(ctx,length,"Float64Array",Double.class);
+        super(ctx,length,"Float64Array",Double.class,TYPE_FLOAT64);
     }
     /**
      * Creates a new JSFloat64Array from the contents of another typed array
@@ -54,7 +56,7 @@ public class JSFloat64Array extends JSTypedArray<Double> {
      * @since 3.0
      */
     public JSFloat64Array(JSTypedArray tarr) {
-        super(tarr,"Float64Array",Double.class);
+        super(tarr,"Float64Array",Double.class,TYPE_FLOAT64);
     }
 
     /**
@@ -64,7 +66,7 @@ public class JSFloat64Array extends JSTypedArray<Double> {
      * @since 3.0
      */
     public JSFloat64Array(JSContext ctx, Object object) {
-        super(ctx,object,"Float64Array",Double.class);
+        super(ctx,object,"Float64Array",Double.class,TYPE_FLOAT64);
     }
 
     /**
@@ -75,7 +77,7 @@ public class JSFloat64Array extends JSTypedArray<Double> {
      * @since 3.0
      */
     public JSFloat64Array(JSArrayBuffer buffer, int byteOffset, int length) {
-        super(buffer,byteOffset,length,"Float64Array",Double.class);
+        super(buffer,byteOffset,length,"Float64Array",Double.class,TYPE_FLOAT64);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -84,7 +86,7 @@ public class JSFloat64Array extends JSTypedArray<Double> {
      * @since 3.0
      */
     public JSFloat64Array(JSArrayBuffer buffer, int byteOffset) {
-        super(buffer,byteOffset,"Float64Array",Double.class);
+        super(buffer,byteOffset,"Float64Array",Double.class,TYPE_FLOAT64);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -92,7 +94,7 @@ public class JSFloat64Array extends JSTypedArray<Double> {
      * @since 3.0
      */
     public JSFloat64Array(JSArrayBuffer buffer) {
-        super(buffer,"Float64Array",Double.class);
+        super(buffer,"Float64Array",Double.class,TYPE_FLOAT64);
     }
 
     /**
@@ -102,7 +104,7 @@ public class JSFloat64Array extends JSTypedArray<Double> {
      * @since 3.0
      */
     public JSFloat64Array(long valueRef, JSContext ctx) {
-        super(valueRef,ctx,Double.class);
+        super(valueRef,ctx,Double.class,TYPE_FLOAT64);
     }
  
     /**
@@ -126,7 +128,7 @@ public class JSFloat64Array extends JSTypedArray<Double> {
     }
 
     private JSFloat64Array(JSFloat64Array superList, int leftBuffer, int rightBuffer) {
-        super(superList,leftBuffer,rightBuffer,Double.class);
+        super(superList,leftBuffer,rightBuffer,Double.class,TYPE_FLOAT64);
     }
     /**
      * @see java.util.List#subList(int, int)
@@ -140,4 +142,41 @@ public class JSFloat64Array extends JSTypedArray<Double> {
         }
         return new JSFloat64Array(this,fromIndex,size()-toIndex);
     }
+
+    /**
+     * Copies the contents of this array into a new direct DoubleBuffer, using a single trip to the
+     * JavaScript thread.  The buffer is a snapshot; write changes back with write(ByteBuffer).
+     * @return a DoubleBuffer view of a direct buffer in native byte order
+     * @since 3.1
+     */
+    public DoubleBuffer toDoubleBuffer() {
+        return toByteBuffer().asDoubleBuffer();
+    }
+
+    /**
+     * Copies 'len' elements, starting at element 'offset', into 'dst' in a single native call
+     * @param offset  the first element of this array to copy
+     * @param dst  the array to copy to
+     * @param dstOff  the first index of 'dst' to copy to
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void get(int offset, double[] dst, int dstOff, int len) {
+        getElements(offset, dst, dstOff, len);
+    }
+
+    /**
+     * Copies 'len' elements from 'src' into this array, starting at element 'offset', in a
+     * single native call
+     * @param offset  the first element of this array to copy to
+     * @param src  the array to copy from
+     * @param srcOff  the first index of 'src' to copy from
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void set(int offset, double[] src, int srcOff, int len) {
+        setElements(offset, src, srcOff, len);
+    }
 }
@@ -44,8 +44,7 @@ import java.util.ArrayList;
  */
 public class JSFunction extends JSObject {
 
-    private abstract class JNIReturnClass implements Runnable {
-        JNIReturnObject jni;
+    private abstract class JNIReturnClass extends JNIReturnObject implements Runnable {
     }
 
     /**
@@ -64,21 +63,22 @@ public class JSFunction extends JSObject {
                       final String body, final String sourceURL, final int startingLineNumber)
             {
         context = ctx;
-        context.sync(new Runnable() {
+        context.sync(new JNIReturnClass() {
             @Override
             public void run() {
                 long[] names = new long[parameterNames.length];
                 for (int i = 0; i < parameterNames.length; i++) {
                     names[i] = new JSString(parameterNames[i]).stringRef();
                 }
-                JNIReturnObject jni = makeFunction(
+                makeFunction(
                         context.ctxRef(),
                         new JSString(name).stringRef(),
                         names,
                         new JSString(body).stringRef(),
                         (sourceURL == null) ? 0L : new JSString(sourceURL).stringRef(),
-                        startingLineNumber);
-                valueRef = testException(jni);
+                        startingLineNumber,
+                        this);
+                valueRef = testException(this);
             }
         });
         context.persistObject(this);
@@ -137,6 +137,7 @@ public class JSFunction extends JSObject {
         context = ctx;
         this.method = method;
         this.invokeObject = (invokeObject==null) ? this: invokeObject;
+        prepareConverters();
         context.sync(new Runnable() {
             @Override
             public void run() {
@@ -296,6 +297,8 @@ public class JSFunction extends JSObject {
         }
         if (method == null) {
             context.throwJSException(new JSException(context,"No such method. Did you make it public?"));
+        } else {
+            prepareConverters();
         }
         context.sync(new Runnable() {
             @Override
@@ -370,6 +373,32 @@ public class JSFunction extends JSObject {
         this(ctx,methodName,JSObject.class);
     }
 
+    /**
+     * Creates a new function object which calls the method at 'index' in 'binding' on
+     * 'invokeObject'
+     * @param ctx    The JSContext to create the object in
+     * @param binding  The generated binding of an exported interface
+     * @param index  The index of the method in 'binding'
+     * @param invokeObject  The object on which to invoke the method
+     */
+    JSFunction(JSContext ctx, final JSBinding binding, final int index, JSObject invokeObject) {
+        context = ctx;
+        this.binding = binding;
+        this.bindingIndex = index;
+        this.invokeObject = invokeObject;
+        context.sync(new Runnable() {
+            @Override
+            public void run() {
+                valueRef = makeFunctionWithCallback(context.ctxRef(),
+                        new JSString(binding.name(index)).stringRef());
+                subclass = JSObject.class;
+            }
+        });
+
+        context.persistObject(this);
+        context.zombies.add(this);
+    }
+
     /**
      * Wraps an existing object as a JSFunction
      * @param objRef  The JavaScriptCore object reference
@@ -391,7 +420,7 @@ public class JSFunction extends JSObject {
         return apply(thiz,args);
     }
 
-    private long [] argsToValueRefs(final Object[] args) {
+    long [] argsToValueRefs(final Object[] args) {
         ArrayList<JSValue> largs = new ArrayList<>();
         if (args!=null) {
             for (Object o: args) {
@@ -426,16 +455,16 @@ public class JSFunction extends JSObject {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = callAsFunction(context.ctxRef(), valueRef, (thiz==null)?0L:thiz.valueRef(),
-                        argsToValueRefs(args));
+                callAsFunction(context.ctxRef(), valueRef, (thiz==null)?0L:thiz.valueRef(),
+                        argsToValueRefs(args), this);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.exception!=0) {
-            context.throwJSException(new JSException(new JSValue(runnable.jni.exception,context)));
+        if (runnable.exception!=0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception,context)));
             return new JSValue(context);
         }
-        return new JSValue(runnable.jni.reference,context);
+        return new JSValue(runnable.reference,context);
     }
     /**
      * Calls this JavaScript function with no args and 'this' as null
@@ -456,11 +485,11 @@ public class JSFunction extends JSObject {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = callAsConstructor(context.ctxRef(), valueRef, argsToValueRefs(args));
+                callAsConstructor(context.ctxRef(), valueRef, argsToValueRefs(args), this);
             }
         };
         context.sync(runnable);
-        return context.getObjectFromRef(testException(runnable.jni));
+        return context.getObjectFromRef(testException(runnable));
     }
 
     /**
@@ -473,13 +502,12 @@ public class JSFunction extends JSObject {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = new JNIReturnObject();
-                jni.reference = getPrototype(context.ctxRef(), valueRef);
+                reference = getPrototype(context.ctxRef(), valueRef);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.reference==0) return null;
-        return new JSValue(runnable.jni.reference,context);
+        if (runnable.reference==0) return null;
+        return new JSValue(runnable.reference,context);
     }
     /**
      * Sets the prototype object
@@ -496,6 +524,8 @@ public class JSFunction extends JSObject {
         });
     }
 
+    // The native layer reuses 'argumentsValueRef' between callbacks on the same thread, so the
+    // references must be copied out before anything can call back into JavaScript
     @SuppressWarnings("unused") // This is called directly from native code
     private long functionCallback(long ctxRef, long functionRef, long thisObjectRef,
                                   long argumentsValueRef[], long exceptionRefRef) {
@@ -525,12 +555,18 @@ public class JSFunction extends JSObject {
     }
 
     protected JSValue function(JSObject thiz, JSValue [] args, final JSObject invokeObject) {
-        Class<?>[] pType  = method.getParameterTypes();
-        Object [] passArgs = new Object[pType.length];
+        if (binding != null) {
+            return invokeBinding(thiz, args, invokeObject);
+        }
+        if (convertersMethod != method) {
+            // Subclasses may set 'method' themselves
+            prepareConverters();
+        }
+        Object [] passArgs = new Object[converters.length];
         for (int i=0; i<passArgs.length; i++) {
             if (i<args.length) {
                 if (args[i]==null) passArgs[i] = null;
-                else passArgs[i] = args[i].toJavaObject(pType[i]);
+                else passArgs[i] = converters[i].convert(args[i]);
             } else {
                 passArgs[i] = null;
             }
@@ -560,6 +596,27 @@ public class JSFunction extends JSObject {
         return returnValue;
     }
 
+    private void prepareConverters() {
+        converters = JSConverter.forParameters(method);
+        convertersMethod = method;
+    }
+
+    private JSValue invokeBinding(JSObject thiz, JSValue [] args, final JSObject invokeObject) {
+        JSObject stack = invokeObject.getThis();
+        try {
+            invokeObject.setThis(thiz);
+            return binding.invoke(bindingIndex, invokeObject, context, args);
+        } catch (JSException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            context.throwJSException(new JSException(context, e.toString()));
+            return new JSValue(context);
+        } finally {
+            invokeObject.setThis(stack);
+        }
+    }
+
     private abstract class JSObjectReturnClass implements Runnable {
         public JSObject object;
         @Override
@@ -651,4 +708,8 @@ public class JSFunction extends JSObject {
 
     protected Method method = null;
     private JSObject invokeObject = null;
+    private JSBinding binding = null;
+    private JSConverter [] converters = null;
+    private Method convertersMethod = null;
+    private int bindingIndex = 0;
 }
@@ -34,6 +34,8 @@ package org.liquidplayer.webkit.javascriptcore;
 
 import android.support.annotation.NonNull;
 
+import java.nio.ShortBuffer;
+
 /**
  * A convenience class for handling JavaScript's Int16Array
  */
@@ -44,7 +46,7 @@ public class JSInt16Array extends JSTypedArray<Short> {
      * @param length  the length of the array in elements
      */
     public JSInt16Array(JSContext ctx, int length) {
-        super(ctx,length,"Int16Array",Short.class);
+        super(ctx,length,"Int16Array",Short.class,TYPE_INT16);
     }
 
     /**
@@ -52,7 +54,7 @@ public class JSInt16Array extends JSTypedArray<Short> {
      * @param tarr  the typed array from which to create the new array
      */
     public JSInt16Array(JSTypedArray tarr) {
-        super(tarr,"Int16Array",Short.class);
+        super(tarr,"Int16Array",Short.class,TYPE_INT16);
     }
 
     /**
@@ -61,7 +63,7 @@ public class JSInt16Array extends JSTypedArray<Short> {
      * @param object  The object to create the array from
      */
     public JSInt16Array(JSContext ctx, Object object) {
-        super(ctx,object,"Int16Array",Short.class);
+        super(ctx,object,"Int16Array",Short.class,TYPE_INT16);
     }
 
     /**
@@ -71,7 +73,7 @@ public class JSInt16Array extends JSTypedArray<Short> {
      * @param length  The number of bytes from 'byteOffset' to include in the array
      */
     public JSInt16Array(JSArrayBuffer buffer, int byteOffset, int length) {
-        super(buffer,byteOffset,length,"Int16Array",Short.class);
+        super(buffer,byteOffset,length,"Int16Array",Short.class,TYPE_INT16);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -79,14 +81,14 @@ public class JSInt16Array extends JSTypedArray<Short> {
      * @param byteOffset  The byte offset in the ArrayBuffer to start from
      */
     public JSInt16Array(JSArrayBuffer buffer, int byteOffset) {
-        super(buffer,byteOffset,"Int16Array",Short.class);
+        super(buffer,byteOffset,"Int16Array",Short.class,TYPE_INT16);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
      * @param buffer  The JSArrayBuffer to create the typed array from
      */
     public JSInt16Array(JSArrayBuffer buffer) {
-        super(buffer,"Int16Array",Short.class);
+        super(buffer,"Int16Array",Short.class,TYPE_INT16);
     }
 
     /**
@@ -95,7 +97,7 @@ public class JSInt16Array extends JSTypedArray<Short> {
      * @param ctx  The JSContext of the value
      */
     public JSInt16Array(long valueRef, JSContext ctx) {
-        super(valueRef,ctx,Short.class);
+        super(valueRef,ctx,Short.class,TYPE_INT16);
     }
 
     /**
@@ -119,7 +121,7 @@ public class JSInt16Array extends JSTypedArray<Short> {
     }
 
     private JSInt16Array(JSInt16Array superList, int leftBuffer, int rightBuffer) {
-        super(superList,leftBuffer,rightBuffer,Short.class);
+        super(superList,leftBuffer,rightBuffer,Short.class,TYPE_INT16);
     }
     /**
      * @see java.util.List#subList(int, int)
@@ -133,4 +135,41 @@ public class JSInt16Array extends JSTypedArray<Short> {
         }
         return new JSInt16Array(this,fromIndex,size()-toIndex);
     }
+
+    /**
+     * Copies the contents of this array into a new direct ShortBuffer, using a single trip to the
+     * JavaScript thread.  The buffer is a snapshot; write changes back with write(ByteBuffer).
+     * @return a ShortBuffer view of a direct buffer in native byte order
+     * @since 3.1
+     */
+    public ShortBuffer toShortBuffer() {
+        return toByteBuffer().asShortBuffer();
+    }
+
+    /**
+     * Copies 'len' elements, starting at element 'offset', into 'dst' in a single native call
+     * @param offset  the first element of this array to copy
+     * @param dst  the array to copy to
+     * @param dstOff  the first index of 'dst' to copy to
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void get(int offset, short[] dst, int dstOff, int len) {
+        getElements(offset, dst, dstOff, len);
+    }
+
+    /**
+     * Copies 'len' elements from 'src' into this array, starting at element 'offset', in a
+     * single native call
+     * @param offset  the first element of this array to copy to
+     * @param src  the array to copy from
+     * @param srcOff  the first index of 'src' to copy from
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void set(int offset, short[] src, int srcOff, int len) {
+        setElements(offset, src, srcOff, len);
+    }
 }
@@ -34,6 +34,8 @@ package org.liquidplayer.webkit.javascriptcore;
 
 import android.support.annotation.NonNull;
 
+import java.nio.IntBuffer;
+
 /**
  * A convenience class for handling JavaScript's Int32Array
  * @since 3.0
@@ -46,7 +48,7 @@ public class JSInt32Array extends JSTypedArray<Integer> {
      * @since 3.0
      */
     public JSInt32Array(JSContext ctx, int length) {
-        super(ctx,length,"Int32Array",Integer.class);
+        super(ctx,length,"Int32Array",Integer.class,TYPE_INT32);
     }
 
     /**
@@ -55,7 +57,7 @@ public class JSInt32Array extends JSTypedArray<Integer> {
      * @since 3.0
      */
     public JSInt32Array(JSTypedArray tarr) {
-        super(tarr,"Int32Array",Integer.class);
+        super(tarr,"Int32Array",Integer.class,TYPE_INT32);
     }
 
     /**
@@ -65,7 +67,7 @@ public class JSInt32Array extends JSTypedArray<Integer> {
      * @since 3.0
      */
     public JSInt32Array(JSContext ctx, Object object) {
-        super(ctx,object,"Int32Array",Integer.class);
+        super(ctx,object,"Int32Array",Integer.class,TYPE_INT32);
     }
 
     /**
@@ -76,7 +78,7 @@ public class JSInt32Array extends JSTypedArray<Integer> {
      * @since 3.0
      */
     public JSInt32Array(JSArrayBuffer buffer, int byteOffset, int length) {
-        super(buffer,byteOffset,length,"Int32Array",Integer.class);
+        super(buffer,byteOffset,length,"Int32Array",Integer.class,TYPE_INT32);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -85,7 +87,7 @@ public class JSInt32Array extends JSTypedArray<Integer> {
      * @since 3.0
      */
     public JSInt32Array(JSArrayBuffer buffer, int byteOffset) {
-        super(buffer,byteOffset,"Int32Array",Integer.class);
+        super(buffer,byteOffset,"Int32Array",Integer.class,TYPE_INT32);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -93,7 +95,7 @@ public class JSInt32Array extends JSTypedArray<Integer> {
      * @since 3.0
      */
     public JSInt32Array(JSArrayBuffer buffer) {
-        super(buffer,"Int32Array",Integer.class);
+        super(buffer,"Int32Array",Integer.class,TYPE_INT32);
     }
 
     /**
@@ -103,7 +105,7 @@ public class JSInt32Array extends JSTypedArray<Integer> {
      * @since 3.0
      */
     public JSInt32Array(long valueRef, JSContext ctx) {
-        super(valueRef,ctx,Integer.class);
+        super(valueRef,ctx,Integer.class,TYPE_INT32);
     }
 
     /**
@@ -127,7 +129,7 @@ public class JSInt32Array extends JSTypedArray<Integer> {
     }
 
     private JSInt32Array(JSInt32Array superList, int leftBuffer, int rightBuffer) {
-        super(superList,leftBuffer,rightBuffer,Integer.class);
+        super(superList,leftBuffer,rightBuffer,Integer.class,TYPE_INT32);
     }
     /**
      * @see java.util.List#subList(int, int)
@@ -141,4 +143,41 @@ public class JSInt32Array extends JSTypedArray<Integer> {
         }
         return new JSInt32Array(this,fromIndex,size()-toIndex);
     }
+
+    /**
+     * Copies the contents of this array into a new direct IntBuffer, using a single trip to the
+     * JavaScript thread.  The buffer is a snapshot; write changes back with write(ByteBuffer).
+     * @return an IntBuffer view of a direct buffer in native byte order
+     * @since 3.1
+     */
+    public IntBuffer toIntBuffer() {
+        return toByteBuffer().asIntBuffer();
+    }
+
+    /**
+     * Copies 'len' elements, starting at element 'offset', into 'dst' in a single native call
+     * @param offset  the first element of this array to copy
+     * @param dst  the array to copy to
+     * @param dstOff  the first index of 'dst' to copy to
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void get(int offset, int[] dst, int dstOff, int len) {
+        getElements(offset, dst, dstOff, len);
+    }
+
+    /**
+     * Copies 'len' elements from 'src' into this array, starting at element 'offset', in a
+     * single native call
+     * @param offset  the first element of this array to copy to
+     * @param src  the array to copy from
+     * @param srcOff  the first index of 'src' to copy from
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void set(int offset, int[] src, int srcOff, int len) {
+        setElements(offset, src, srcOff, len);
+    }
 }
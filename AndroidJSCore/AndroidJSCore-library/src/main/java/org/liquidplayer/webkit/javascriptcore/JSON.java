@@ -32,6 +32,14 @@
 */
 package org.liquidplayer.webkit.javascriptcore;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
 /**
  * A convenience class for creating JavaScript values from JSON 
  * @since 3.0
@@ -40,6 +48,20 @@ public class JSON extends JSValue {
     private JSON(JSContext ctx, String str) {
         context = ctx;
         valueRef = this.makeFromJSONString(context.ctxRef(), new JSString(str).stringRef());
+        context.register(this);
+    }
+    private JSON(JSContext ctx, final long buffer, final boolean utf8) {
+        context = ctx;
+        context.sync(new Runnable() {
+            @Override
+            public void run() {
+                valueRef = parseBuffer(context.ctxRef(), buffer, utf8);
+            }
+        });
+        if (valueRef == 0) {
+            throw new OutOfMemoryError("JSON document too large");
+        }
+        context.register(this);
     }
 
     /**
@@ -77,4 +99,87 @@ public class JSON extends JSValue {
     public static JSValue parse(JSContext ctx, String json) {
         return new JSON(ctx,json);
     }
+
+    /**
+     * Creates a new JavaScript value from JSON read from 'reader'.  The document is read a
+     * chunk at a time and accumulated outside of the Java heap, so it never exists as a Java
+     * String.  The reader is not closed.
+     * @param ctx  The context in which to create the value
+     * @param reader  The source of the JSON
+     * @return a JSValue containing the parsed value, or JSValue.isNull() if malformed
+     * @throws IOException  if reading fails
+     * @since 3.1
+     */
+    public static JSValue parse(JSContext ctx, Reader reader) throws IOException {
+        long buffer = createBuffer();
+        try {
+            char [] chunk = new char[JSON_CHUNK_SIZE];
+            for (int count; (count = reader.read(chunk)) != -1; ) {
+                if (!appendChars(buffer, chunk, count)) {
+                    throw new OutOfMemoryError("JSON document too large");
+                }
+            }
+            return new JSON(ctx, buffer, false);
+        } finally {
+            freeBuffer(buffer);
+        }
+    }
+
+    /**
+     * Creates a new JavaScript value from UTF-8 encoded JSON read from 'channel'.  The
+     * document is read a chunk at a time and accumulated outside of the Java heap, so it never
+     * exists as a Java String.  The channel must be in blocking mode, and is not closed.
+     * @param ctx  The context in which to create the value
+     * @param channel  The source of the JSON
+     * @return a JSValue containing the parsed value, or JSValue.isNull() if malformed
+     * @throws IOException  if reading fails
+     * @since 3.1
+     */
+    public static JSValue parse(JSContext ctx, ReadableByteChannel channel) throws IOException {
+        long buffer = createBuffer();
+        try {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(JSON_CHUNK_SIZE * 2);
+            while (channel.read(chunk) != -1) {
+                if (!appendBytes(buffer, chunk, chunk.position())) {
+                    throw new OutOfMemoryError("JSON document too large");
+                }
+                chunk.clear();
+            }
+            return new JSON(ctx, buffer, true);
+        } finally {
+            freeBuffer(buffer);
+        }
+    }
+
+    /**
+     * Writes a JSON representation of 'value' to 'writer' a chunk at a time, without creating
+     * the whole document as a Java String.  The writer is neither flushed nor closed.
+     * @param value  The JSValue to convert to JSON
+     * @param writer  The destination of the JSON
+     * @throws IOException  if writing fails
+     * @since 3.1
+     */
+    public static void stringify(JSValue value, Writer writer) throws IOException {
+        value.toJSON(writer, 0);
+    }
+
+    /**
+     * Writes a UTF-8 encoded JSON representation of 'value' to 'channel' a chunk at a time,
+     * without creating the whole document as a Java String.  The channel is not closed.
+     * @param value  The JSValue to convert to JSON
+     * @param channel  The destination of the JSON
+     * @throws IOException  if writing fails
+     * @since 3.1
+     */
+    public static void stringify(JSValue value, WritableByteChannel channel) throws IOException {
+        Writer writer = Channels.newWriter(channel, "UTF-8");
+        value.toJSON(writer, 0);
+        writer.flush();
+    }
+
+    protected static native long createBuffer();
+    protected static native boolean appendChars(long buffer, char[] chars, int count);
+    protected static native boolean appendBytes(long buffer, ByteBuffer bytes, int count);
+    protected static native long parseBuffer(long ctx, long buffer, boolean utf8);
+    protected static native void freeBuffer(long buffer);
 }
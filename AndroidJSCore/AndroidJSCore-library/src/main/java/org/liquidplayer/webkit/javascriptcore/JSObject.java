@@ -44,8 +44,7 @@ import java.util.Map;
  */
 public class JSObject extends JSValue {
 
-    private abstract class JNIReturnClass implements Runnable {
-        JNIReturnObject jni;
+    private abstract class JNIReturnClass extends JNIReturnObject implements Runnable {
     }
 
     /**
@@ -134,17 +133,33 @@ public class JSObject extends JSValue {
             @Override
             public void run() {
                 valueRef = make(context.ctxRef(), 0L);
-                Method[] methods = iface.getDeclaredMethods();
-                for (Method m : methods) {
-                    JSObject f = new JSFunction(context, m,
-                            JSObject.class, JSObject.this);
-                    property(m.getName(), f);
-                }
+                exportMethods(iface);
             }
         });
         context.persistObject(this);
     }
 
+    /**
+     * Sets a function property for each method in 'iface', which calls the method on this
+     * object.  Uses the interface's generated JSBinding if there is one, and reflection
+     * otherwise.
+     * @param iface The Java Interface defining the methods to expose to JavaScript
+     */
+    void exportMethods(Class<?> iface) {
+        JSBinding binding = JSBinding.forInterface(iface);
+        if (binding != null) {
+            for (int i=0; i<binding.size(); i++) {
+                property(binding.name(i), new JSFunction(context, binding, i, this));
+            }
+        } else {
+            Method[] methods = iface.getDeclaredMethods();
+            for (Method m : methods) {
+                JSObject f = new JSFunction(context, m, JSObject.class, this);
+                property(m.getName(), f);
+            }
+        }
+    }
+
     /**
      * Creates a new function object with the entries in 'map' set as properties.
      *
@@ -168,12 +183,11 @@ public class JSObject extends JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = hasProperty(context.ctxRef(), valueRef, new JSString(prop).stringRef());
+                bool = hasProperty(context.ctxRef(), valueRef, JSString.intern(prop).stringRef());
             }
         };
         context.sync(runnable);
-        return runnable.jni.bool;
+        return runnable.bool;
     }
 
     /**
@@ -187,15 +201,15 @@ public class JSObject extends JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = getProperty(context.ctxRef(), valueRef, new JSString(prop).stringRef());
+                getProperty(context.ctxRef(), valueRef, JSString.intern(prop).stringRef(), this);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.exception != 0) {
-            context.throwJSException(new JSException(new JSValue(runnable.jni.exception, context)));
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
             return new JSValue(context);
         }
-        return new JSValue(runnable.jni.reference, context);
+        return new JSValue(runnable.reference, context);
     }
 
     /**
@@ -211,18 +225,18 @@ public class JSObject extends JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                JSString name = new JSString(prop);
-                jni = setProperty(
+                JSString name = JSString.intern(prop);
+                setProperty(
                         context.ctxRef(),
                         valueRef,
                         name.stringRef,
                         (value instanceof JSValue) ? ((JSValue) value).valueRef() : new JSValue(context, value).valueRef(),
-                        attributes);
+                        attributes, this);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.exception != 0) {
-            context.throwJSException(new JSException(new JSValue(runnable.jni.exception, context)));
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
         }
     }
 
@@ -249,16 +263,16 @@ public class JSObject extends JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                JSString name = new JSString(prop);
-                jni = deleteProperty(context.ctxRef(), valueRef, name.stringRef());
+                JSString name = JSString.intern(prop);
+                deleteProperty(context.ctxRef(), valueRef, name.stringRef(), this);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.exception != 0) {
-            context.throwJSException(new JSException(new JSValue(runnable.jni.exception, context)));
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
             return false;
         }
-        return runnable.jni.bool;
+        return runnable.bool;
     }
 
     /**
@@ -272,15 +286,15 @@ public class JSObject extends JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = getPropertyAtIndex(context.ctxRef(), valueRef, index);
+                getPropertyAtIndex(context.ctxRef(), valueRef, index, this);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.exception != 0) {
-            context.throwJSException(new JSException(new JSValue(runnable.jni.exception, context)));
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
             return new JSValue(context);
         }
-        return new JSValue(runnable.jni.reference, context);
+        return new JSValue(runnable.reference, context);
     }
 
     /**
@@ -294,13 +308,13 @@ public class JSObject extends JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = setPropertyAtIndex(context.ctxRef(), valueRef, index,
-                        (value instanceof JSValue) ? ((JSValue) value).valueRef() : new JSValue(context, value).valueRef());
+                setPropertyAtIndex(context.ctxRef(), valueRef, index,
+                        (value instanceof JSValue) ? ((JSValue) value).valueRef() : new JSValue(context, value).valueRef(), this);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.exception != 0) {
-            context.throwJSException(new JSException(new JSValue(runnable.jni.exception, context)));
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
         }
     }
 
@@ -343,12 +357,11 @@ public class JSObject extends JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = isFunction(context.ctxRef(), valueRef);
+                bool = isFunction(context.ctxRef(), valueRef);
             }
         };
         context.sync(runnable);
-        return runnable.jni.bool;
+        return runnable.bool;
     }
 
     /**
@@ -361,12 +374,11 @@ public class JSObject extends JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = isConstructor(context.ctxRef(), valueRef);
+                bool = isConstructor(context.ctxRef(), valueRef);
             }
         };
         context.sync(runnable);
-        return runnable.jni.bool;
+        return runnable.bool;
     }
 
     @Override
@@ -376,12 +388,6 @@ public class JSObject extends JSValue {
 
     protected final List<JSObject> zombies = new ArrayList<>();
 
-    @Override
-    protected void finalize() throws Throwable {
-        super.finalize();
-        context.finalizeObject(this);
-    }
-
     protected void setThis(JSObject thiz) {
         this.thiz = thiz;
     }
@@ -405,13 +411,13 @@ public class JSObject extends JSValue {
     @SuppressWarnings("unused")
     protected native long makeInstance(long ctx);
 
-    protected native JNIReturnObject makeArray(long ctx, long[] args);
+    protected native void makeArray(long ctx, long[] args, JNIReturnObject out);
 
-    protected native JNIReturnObject makeDate(long ctx, long[] args);
+    protected native void makeDate(long ctx, long[] args, JNIReturnObject out);
 
-    protected native JNIReturnObject makeError(long ctx, long[] args);
+    protected native void makeError(long ctx, long[] args, JNIReturnObject out);
 
-    protected native JNIReturnObject makeRegExp(long ctx, long[] args);
+    protected native void makeRegExp(long ctx, long[] args, JNIReturnObject out);
 
     protected native long getPrototype(long ctx, long object);
 
@@ -419,15 +425,15 @@ public class JSObject extends JSValue {
 
     protected native boolean hasProperty(long ctx, long object, long propertyName);
 
-    protected native JNIReturnObject getProperty(long ctx, long object, long propertyName);
+    protected native void getProperty(long ctx, long object, long propertyName, JNIReturnObject out);
 
-    protected native JNIReturnObject setProperty(long ctx, long object, long propertyName, long value, int attributes);
+    protected native void setProperty(long ctx, long object, long propertyName, long value, int attributes, JNIReturnObject out);
 
-    protected native JNIReturnObject deleteProperty(long ctx, long object, long propertyName);
+    protected native void deleteProperty(long ctx, long object, long propertyName, JNIReturnObject out);
 
-    protected native JNIReturnObject getPropertyAtIndex(long ctx, long object, int propertyIndex);
+    protected native void getPropertyAtIndex(long ctx, long object, int propertyIndex, JNIReturnObject out);
 
-    protected native JNIReturnObject setPropertyAtIndex(long ctx, long object, int propertyIndex, long value);
+    protected native void setPropertyAtIndex(long ctx, long object, int propertyIndex, long value, JNIReturnObject out);
 
     @SuppressWarnings("unused")
     protected native long getPrivate(long object);
@@ -437,11 +443,11 @@ public class JSObject extends JSValue {
 
     protected native boolean isFunction(long ctx, long object);
 
-    protected native JNIReturnObject callAsFunction(long ctx, long object, long thisObject, long[] args);
+    protected native void callAsFunction(long ctx, long object, long thisObject, long[] args, JNIReturnObject out);
 
     protected native boolean isConstructor(long ctx, long object);
 
-    protected native JNIReturnObject callAsConstructor(long ctx, long object, long[] args);
+    protected native void callAsConstructor(long ctx, long object, long[] args, JNIReturnObject out);
 
     protected native long copyPropertyNames(long ctx, long object);
 
@@ -451,8 +457,8 @@ public class JSObject extends JSValue {
 
     protected native long makeFunctionWithCallback(long ctx, long name);
 
-    protected native JNIReturnObject makeFunction(long ctx, long name, long[] parameterNames,
-                                                  long body, long sourceURL, int startingLineNumber);
+    protected native void makeFunction(long ctx, long name, long[] parameterNames,
+                                                  long body, long sourceURL, int startingLineNumber, JNIReturnObject out);
 
     /* Deprecated Functions */
 
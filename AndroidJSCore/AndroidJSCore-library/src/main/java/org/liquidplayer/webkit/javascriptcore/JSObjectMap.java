@@ -0,0 +1,209 @@
+//
+// JSObjectMap.java
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package org.liquidplayer.webkit.javascriptcore;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Maps JavaScriptCore object references to the JSObject wrapping them.  Keys are stored as
+ * primitive longs in open-addressing (linear probing) tables, so lookups neither box the key
+ * nor allocate.  The map is split into independently locked stripes so that lookups from
+ * the JavaScript thread rarely contend with objects being persisted or reclaimed elsewhere.
+ * Values are held weakly; a mapping whose object has been collected reads as absent until
+ * the reclaimer removes it.
+ */
+class JSObjectMap {
+    private static final int STRIPES = 16;              // must be a power of 2
+    private static final int INITIAL_CAPACITY = 16;     // per stripe, must be a power of 2
+
+    private static class Stripe {
+        long [] keys = new long[INITIAL_CAPACITY];
+        Object [] values = new Object[INITIAL_CAPACITY];
+        int size = 0;
+
+        private int indexOf(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            long k;
+            while ((k = keys[i]) != 0) {
+                if (k == key) return i;
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized JSObject get(long key) {
+            int i = indexOf(key);
+            return (i < 0) ? null : ((WeakReference<JSObject>) values[i]).get();
+        }
+
+        synchronized void put(long key, WeakReference<JSObject> value) {
+            int i = indexOf(key);
+            if (i >= 0) {
+                values[i] = value;
+                return;
+            }
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize();
+            }
+            insert(key, value);
+            size++;
+        }
+
+        synchronized boolean remove(long key, WeakReference<JSObject> expected) {
+            int i = indexOf(key);
+            if (i < 0 || values[i] != expected) return false;
+            delete(i);
+            size--;
+            return true;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void insert(long key, Object value) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        /* Backward-shift deletion, so that no tombstones are needed */
+        private void delete(int i) {
+            int mask = keys.length - 1;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                long k = keys[j];
+                if (k == 0) break;
+                int home = hash(k) & mask;
+                // Move the entry at 'j' into the hole at 'i' unless its home slot lies
+                // cyclically within (i, j]
+                if ((j > i) ? (home <= i || home > j) : (home <= i && home > j)) {
+                    keys[i] = k;
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            keys[i] = 0L;
+            values[i] = null;
+        }
+
+        /* Grows the table, dropping entries whose objects have already been collected */
+        @SuppressWarnings("unchecked")
+        private void resize() {
+            long [] oldKeys = keys;
+            Object [] oldValues = values;
+            int live = 0;
+            for (int i=0; i<oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && ((WeakReference<JSObject>) oldValues[i]).get() != null)
+                    live++;
+            }
+            int capacity = oldKeys.length;
+            while ((live + 1) * 2 > capacity) capacity *= 2;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            size = 0;
+            for (int i=0; i<oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && ((WeakReference<JSObject>) oldValues[i]).get() != null) {
+                    insert(oldKeys[i], oldValues[i]);
+                    size++;
+                }
+            }
+        }
+    }
+
+    private final Stripe [] stripes = new Stripe[STRIPES];
+
+    JSObjectMap() {
+        for (int i=0; i<STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private static int hash(long key) {
+        // References are aligned pointers; mix the bits so that low bits are well distributed
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private Stripe stripe(long key) {
+        return stripes[(hash(key) >>> 28) & (STRIPES - 1)];
+    }
+
+    /**
+     * Gets the live JSObject mapped to 'key'
+     * @param key  the JavaScriptCore object reference
+     * @return the wrapping JSObject, or null if there is none or it has been collected
+     */
+    JSObject get(long key) {
+        return stripe(key).get(key);
+    }
+
+    /**
+     * Maps 'key' to 'value', replacing any existing mapping
+     * @param key  the JavaScriptCore object reference, never 0
+     * @param value  a weak reference to the wrapping JSObject
+     */
+    void put(long key, WeakReference<JSObject> value) {
+        stripe(key).put(key, value);
+    }
+
+    /**
+     * Removes the mapping for 'key' only if it is still 'expected'
+     * @param key  the JavaScriptCore object reference
+     * @param expected  the weak reference expected to be mapped
+     * @return true if the mapping was removed
+     */
+    boolean remove(long key, WeakReference<JSObject> expected) {
+        return stripe(key).remove(key, expected);
+    }
+
+    /**
+     * Gets the number of mappings, including any whose objects have been collected but not
+     * yet reclaimed
+     * @return the number of mappings
+     */
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+}
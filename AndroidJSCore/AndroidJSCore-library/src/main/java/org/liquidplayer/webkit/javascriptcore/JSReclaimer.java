@@ -0,0 +1,313 @@
+//
+// JSReclaimer.java
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package org.liquidplayer.webkit.javascriptcore;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * Releases the JavaScriptCore references held by a context's JSValues once the Java
+ * wrappers become unreachable, without the use of finalizers.  Each protected value is
+ * tracked with a PhantomReference; collected values are picked up from a ReferenceQueue and
+ * unprotected on the context's JavaScript thread, at most 'drainBatchSize' at a time after
+ * each operation on the context, and completely whenever the JavaScript thread goes idle.
+ * Obtain a context's reclaimer with JSContext.reclaimer().
+ * @since 3.1
+ */
+public class JSReclaimer {
+    /**
+     * The default maximum number of references unprotected after a single operation
+     * @since 3.1
+     */
+    public static final int DEFAULT_DRAIN_BATCH_SIZE = 256;
+
+    static class Handle<T> extends PhantomReference<T> {
+        Handle(T referent, ReferenceQueue<? super T> queue, long ref) {
+            super(referent, queue);
+            this.ref = ref;
+        }
+        long ref;
+        WeakReference<JSObject> object = null;
+        Handle<?> prev = null;
+        Handle<?> next = null;
+    }
+
+    /**
+     * Keeps handles strongly reachable until their referents have been collected
+     */
+    static class HandleList {
+        private Handle<?> head = null;
+        private int size = 0;
+
+        synchronized void add(Handle<?> handle) {
+            handle.next = head;
+            if (head != null) head.prev = handle;
+            head = handle;
+            size++;
+        }
+        synchronized boolean remove(Handle<?> handle) {
+            if (handle.prev == null && head != handle) return false;
+            if (handle.prev != null) handle.prev.next = handle.next;
+            else head = handle.next;
+            if (handle.next != null) handle.next.prev = handle.prev;
+            handle.prev = handle.next = null;
+            size--;
+            return true;
+        }
+        synchronized int size() {
+            return size;
+        }
+    }
+
+    JSReclaimer(JSObjectMap objects) {
+        this.objects = objects;
+    }
+
+    private final JSObjectMap objects;
+    private final ReferenceQueue<JSValue> queue = new ReferenceQueue<>();
+    private final HandleList handles = new HandleList();
+    private long ctxRef = 0L;
+    private int draining = 0;
+
+    private volatile int drainBatchSize = DEFAULT_DRAIN_BATCH_SIZE;
+
+    private long [] pending = new long[128];
+    private int pendingCount = 0;
+    private long pendingSince = 0L;
+
+    private long drained = 0L;
+    private long lastLatency = 0L;
+    private long maxLatency = 0L;
+
+    /**
+     * Starts tracking the reference held by 'value'.  If it is already tracked, the handle is
+     * updated with the value's current reference.
+     */
+    void track(JSValue value, WeakReference<JSObject> object) {
+        Handle<JSValue> handle = value.handle;
+        if (handle == null) {
+            handle = new Handle<>(value, queue, value.valueRef());
+            handle.object = object;
+            value.handle = handle;
+            handles.add(handle);
+        } else {
+            handle.ref = value.valueRef();
+            if (object != null) handle.object = object;
+        }
+    }
+
+    /**
+     * Stops tracking 'value', whose reference has been released some other way
+     */
+    void untrack(JSValue value) {
+        Handle<JSValue> handle = value.handle;
+        if (handle != null) {
+            value.handle = null;
+            handle.clear();
+            handles.remove(handle);
+        }
+    }
+
+    /**
+     * Queues a reference to be unprotected on the next drain
+     */
+    synchronized void markForUnprotection(long valueRef) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        if (pendingCount == 0) {
+            pendingSince = System.nanoTime();
+        }
+        pending[pendingCount++] = valueRef;
+    }
+
+    private void poll(int max) {
+        Reference<? extends JSValue> reference;
+        for (int i=0; i<max && (reference = queue.poll()) != null; i++) {
+            Handle<?> handle = (Handle<?>) reference;
+            if (handles.remove(handle)) {
+                if (handle.object != null) {
+                    // Only forget the mapping if no newer wrapper has replaced it
+                    objects.remove(handle.ref, handle.object);
+                }
+                markForUnprotection(handle.ref);
+            }
+        }
+    }
+
+    private void drain(int max) {
+        poll(max);
+        long [] refs;
+        int count;
+        long ctx;
+        synchronized (this) {
+            if (pendingCount == 0 || ctxRef == 0) return;
+            ctx = ctxRef;
+            draining++;
+            count = Math.min(max, pendingCount);
+            refs = Arrays.copyOf(pending, count);
+            pendingCount -= count;
+            System.arraycopy(pending, count, pending, 0, pendingCount);
+            long now = System.nanoTime();
+            lastLatency = now - pendingSince;
+            if (lastLatency > maxLatency) maxLatency = lastLatency;
+            pendingSince = now;
+            drained += count;
+        }
+        // Never call into JavaScriptCore while holding our own lock
+        try {
+            JSValue.unprotectAll(ctx, refs, count);
+        } finally {
+            synchronized (this) {
+                if (--draining == 0) notifyAll();
+            }
+        }
+    }
+
+    synchronized void attach(long ctx) {
+        ctxRef = ctx;
+    }
+
+    /**
+     * Stops unprotecting references in the context, and waits for any drain already under
+     * way to finish, so that the context can then be released safely
+     */
+    synchronized void detach() {
+        ctxRef = 0L;
+        boolean interrupted = false;
+        while (draining > 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Unprotects up to 'drainBatchSize' collected references.  Run on the JavaScript thread
+     * after every operation on the context.
+     */
+    final Runnable monitor = new Runnable() {
+        @Override
+        public void run() {
+            drain(drainBatchSize);
+        }
+    };
+
+    /**
+     * Unprotects every collected reference.  Run when the JavaScript thread goes idle, and
+     * when the context itself is released.
+     */
+    void drainAll() {
+        drain(Integer.MAX_VALUE);
+    }
+
+    final Runnable idle = new Runnable() {
+        @Override
+        public void run() {
+            drainAll();
+        }
+    };
+
+    /**
+     * Sets the maximum number of references unprotected after a single operation on the
+     * context.  Larger batches reclaim faster, smaller batches bound the pause added to
+     * any one operation.
+     * @param batchSize  the maximum batch size, at least 1
+     * @since 3.1
+     */
+    public void setDrainBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1");
+        drainBatchSize = batchSize;
+    }
+
+    /**
+     * Gets the maximum number of references unprotected after a single operation
+     * @return the drain batch size
+     * @since 3.1
+     */
+    public int getDrainBatchSize() {
+        return drainBatchSize;
+    }
+
+    /**
+     * Gets the number of values currently tracked, i.e. held by live Java wrappers
+     * @return the number of tracked values
+     * @since 3.1
+     */
+    public int tracked() {
+        return handles.size();
+    }
+
+    /**
+     * Gets the number of collected references waiting to be unprotected
+     * @return the number of pending references
+     * @since 3.1
+     */
+    public synchronized int pending() {
+        return pendingCount;
+    }
+
+    /**
+     * Gets the total number of references unprotected by this reclaimer
+     * @return the number of drained references
+     * @since 3.1
+     */
+    public synchronized long drained() {
+        return drained;
+    }
+
+    /**
+     * Gets how long, in nanoseconds, the oldest reference in the most recent drain had been
+     * waiting to be unprotected
+     * @return the latency of the last drain in nanoseconds
+     * @since 3.1
+     */
+    public synchronized long lastLatency() {
+        return lastLatency;
+    }
+
+    /**
+     * Gets the largest drain latency seen so far, in nanoseconds
+     * @return the maximum latency in nanoseconds
+     * @since 3.1
+     */
+    public synchronized long maxLatency() {
+        return maxLatency;
+    }
+}
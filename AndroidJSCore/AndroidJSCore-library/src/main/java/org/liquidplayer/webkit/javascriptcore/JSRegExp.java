@@ -53,7 +53,10 @@ public class JSRegExp extends JSObject {
                 new JSValue(context,pattern).valueRef(),
                 new JSValue(context,flags).valueRef(),
         };
-        valueRef = makeRegExp(context.ctxRef(), args).reference;
+        JNIReturnObject jni = new JNIReturnObject();
+        makeRegExp(context.ctxRef(), args, jni);
+        valueRef = jni.reference;
+        context.register(this);
     }
     /**
      * Creates a new JavaScript regular expression
@@ -66,8 +69,10 @@ public class JSRegExp extends JSObject {
         long [] args = {
                 new JSValue(context,pattern).valueRef()
         };
-        JNIReturnObject jni = makeRegExp(context.ctxRef(), args);
-        valueRef = makeRegExp(context.ctxRef(), args).reference;
+        JNIReturnObject jni = new JNIReturnObject();
+        makeRegExp(context.ctxRef(), args, jni);
+        valueRef = jni.reference;
+        context.register(this);
     }
 
     /**
@@ -0,0 +1,142 @@
+//
+// JSScope.java
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package org.liquidplayer.webkit.javascriptcore;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups short-lived JSValues so that they can be released in bulk.  Every JSValue
+ * created by the opening thread while a scope is open is recorded in that thread's
+ * innermost scope, and closing the scope unprotects all of them with a single native
+ * call.  Those values then never reach the context's dead reference queue.
+ * Values created in a scope must not be used after it is closed, unless they are first
+ * removed from it with escape(); this includes values returned out of the scope or stored
+ * for later use.  JSObjects (including the errors carried by a JSException) are
+ * shared through the context and are not recorded.  A scope must be closed on the
+ * thread that opened it.
+ * Example:
+ * <pre>
+ * {@code
+ * JSScope scope = context.scope();
+ * try {
+ *     for (int i=0; i<array.size(); i++) {
+ *         sum += array.propertyAtIndex(i).toNumber();
+ *     }
+ * } finally {
+ *     scope.close();
+ * }
+ * }
+ * </pre>
+ * On API level 19 and above, a scope may also be used in a try-with-resources statement.
+ * @since 3.1
+ */
+public class JSScope implements Closeable {
+
+    private final JSContext context;
+    private final Thread thread;
+    private final List<JSValue> values = new ArrayList<>();
+    final JSScope parent;
+    private boolean closed = false;
+
+    protected JSScope(JSContext ctx, JSScope parent) {
+        context = ctx;
+        thread = Thread.currentThread();
+        this.parent = parent;
+    }
+
+    void add(JSValue value) {
+        values.add(value);
+    }
+
+    /**
+     * Removes 'value' from this scope, so that it remains usable once the scope is closed.
+     * It is then released as any other value, once it is no longer referenced.
+     * @param value  a value created in this scope
+     * @param <T>  the value's type
+     * @return 'value'
+     * @since 3.1
+     */
+    public <T extends JSValue> T escape(T value) {
+        for (int i=values.size()-1; i>=0; i--) {
+            if (values.get(i) == value) {
+                values.remove(i);
+                break;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Gets the number of values recorded in this scope
+     * @return the number of values that will be released when the scope is closed
+     * @since 3.1
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Releases all values created in this scope, and closes any scopes nested in it that
+     * are still open.  Closing a scope more than once has no effect.
+     * @since 3.1
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        if (Thread.currentThread() != thread) {
+            throw new IllegalStateException("A JSScope must be closed on the thread that opened it");
+        }
+        context.endScope(this);
+        closed = true;
+
+        final long [] valueRefs = new long[values.size()];
+        int count = 0;
+        for (JSValue value : values) {
+            if (value.release()) {
+                valueRefs[count++] = value.valueRef();
+            }
+        }
+        values.clear();
+        if (count > 0) {
+            final int n = count;
+            context.sync(new Runnable() {
+                @Override
+                public void run() {
+                    JSContext.unprotectAll(context.ctxRef(), valueRefs, n);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,123 @@
+//
+// JSScript.java
+// AndroidJSCore project
+//
+// https://github.com/ericwlange/AndroidJSCore/
+//
+// Created by Eric Lange
+//
+/*
+ Copyright (c) 2014-2016 Eric Lange. All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met:
+
+ - Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer.
+
+ - Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution.
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+package org.liquidplayer.webkit.javascriptcore;
+
+/**
+ * A script compiled in a context with JSContext.compile(), which can be evaluated any number
+ * of times without copying its source into JavaScriptCore again.  Evaluating a script is
+ * equivalent to JSContext.evaluateScript(): it runs in the global scope, and returns the
+ * value of its last statement.
+ * Example:
+ * <pre>
+ * {@code
+ * JSScript render = context.compile("render(model)", "render.js");
+ * for (JSObject model : models) {
+ *     context.property("model", model);
+ *     results.add(render.evaluate().toString());
+ * }
+ * }
+ * </pre>
+ * @since 3.1
+ */
+public class JSScript {
+    JSScript(JSContext context, String source, String sourceURL, int startingLineNumber) {
+        this.context = context;
+        this.source = source;
+        this.sourceURL = sourceURL;
+        this.startingLineNumber = startingLineNumber;
+        this.script = new JSValue.JSString(source);
+        this.url = new JSValue.JSString(sourceURL);
+    }
+
+    private final JSContext context;
+    private final String source;
+    private final String sourceURL;
+    private final int startingLineNumber;
+    final JSValue.JSString script;
+    final JSValue.JSString url;
+
+    /**
+     * Evaluates the script
+     * @param thiz  The 'this' object
+     * @return  The value of the script's last statement
+     * @since 3.1
+     */
+    public JSValue evaluate(JSObject thiz) {
+        return context.evaluateScript(this, thiz);
+    }
+
+    /**
+     * Evaluates the script
+     * @return  The value of the script's last statement
+     * @since 3.1
+     */
+    public JSValue evaluate() {
+        return evaluate(null);
+    }
+
+    /**
+     * Gets the context in which the script was compiled
+     * @return  the context
+     * @since 3.1
+     */
+    public JSContext getContext() {
+        return context;
+    }
+
+    /**
+     * Gets the source code of the script
+     * @return  the source code
+     * @since 3.1
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the URI of the script's source file, used only for reporting in stack traces
+     * @return  the source URL, or null if none
+     * @since 3.1
+     */
+    public String getSourceURL() {
+        return sourceURL;
+    }
+
+    /**
+     * Gets the line number at which the script begins, used only for reporting in stack traces
+     * @return  the starting line number
+     * @since 3.1
+     */
+    public int getStartingLineNumber() {
+        return startingLineNumber;
+    }
+}
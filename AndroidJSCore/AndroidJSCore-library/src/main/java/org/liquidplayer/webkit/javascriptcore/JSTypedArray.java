@@ -32,6 +32,10 @@
 */
 package org.liquidplayer.webkit.javascriptcore;
 
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * A convenience base class for JavaScript typed arrays.  This is an abstract class, and is
  * subclassed by JSInt8Array, JSInt16Array, JSInt32Array, JSUint8Array, JSUint16Array,
@@ -41,34 +45,40 @@ package org.liquidplayer.webkit.javascriptcore;
  */
 public abstract class JSTypedArray<T> extends JSBaseArray<T> {
 
-    protected JSTypedArray(JSContext ctx, int length, String jsConstructor, Class<T> cls) {
+    protected JSTypedArray(JSContext ctx, int length, String jsConstructor,
+                        Class<T> cls, int elementType) {
         super(ctx,cls);
-        JSFunction constructor = new JSFunction(context,"_" + jsConstructor,new String[] {"length"},
-                "return new " + jsConstructor + "(length);",
-                null, 0);
+        this.elementType = elementType;
+        JSFunction constructor = context.helper("_" + jsConstructor,
+                new String[] {"length"},
+                "return new " + jsConstructor + "(length);");
         JSValue newArray = constructor.call(null,length);
         valueRef = newArray.valueRef();
         protect(context.ctxRef(), valueRef);
         context.persistObject(this);
     }
 
-    protected JSTypedArray(JSTypedArray typedArray, String jsConstructor, Class<T> cls) {
+    protected JSTypedArray(JSTypedArray typedArray, String jsConstructor,
+                        Class<T> cls, int elementType) {
         super(typedArray.context, cls);
-        JSFunction constructor = new JSFunction(context,"_" + jsConstructor,new String[] {"tarr"},
-                "return new " + jsConstructor + "(tarr);",
-                null, 0);
+        this.elementType = elementType;
+        JSFunction constructor = context.helper("_" + jsConstructor,
+                new String[] {"tarr"},
+                "return new " + jsConstructor + "(tarr);");
         JSValue newArray = constructor.call(null,typedArray);
         valueRef = newArray.valueRef();
         protect(context.ctxRef(), valueRef);
         context.persistObject(this);
     }
 
-    protected JSTypedArray(JSContext ctx, Object object, String jsConstructor, Class<T> cls) {
+    protected JSTypedArray(JSContext ctx, Object object, String jsConstructor,
+                        Class<T> cls, int elementType) {
         super(ctx,cls);
+        this.elementType = elementType;
         context = ctx;
-        JSFunction constructor = new JSFunction(context,"_" + jsConstructor,new String[] {"obj"},
-                "return new " + jsConstructor + "(obj);",
-                null, 0);
+        JSFunction constructor = context.helper("_" + jsConstructor,
+                new String[] {"obj"},
+                "return new " + jsConstructor + "(obj);");
         JSValue newArray = constructor.call(null,object);
         valueRef = newArray.valueRef();
         protect(context.ctxRef(), valueRef);
@@ -76,46 +86,50 @@ public abstract class JSTypedArray<T> extends JSBaseArray<T> {
     }
 
     protected JSTypedArray(JSArrayBuffer buffer, int byteOffset, int length, String jsConstructor,
-                        Class<T> cls) {
+                        Class<T> cls, int elementType) {
         super(buffer.getJSObject().getContext(),cls);
-        JSFunction constructor = new JSFunction(context,"_" + jsConstructor,
+        this.elementType = elementType;
+        JSFunction constructor = context.helper("_" + jsConstructor,
                 new String[] {"buffer,byteOffset,length"},
-                "return new " + jsConstructor + "(buffer,byteOffset,length);",
-                null, 0);
+                "return new " + jsConstructor + "(buffer,byteOffset,length);");
         JSValue newArray = constructor.call(null,buffer.getJSObject(),byteOffset,length);
         valueRef = newArray.valueRef();
         protect(context.ctxRef(), valueRef);
         context.persistObject(this);
     }
     protected JSTypedArray(JSArrayBuffer buffer, int byteOffset, String jsConstructor,
-                        Class<T> cls) {
+                        Class<T> cls, int elementType) {
         super(buffer.getJSObject().getContext(),cls);
-        JSFunction constructor = new JSFunction(context,"_" + jsConstructor,
+        this.elementType = elementType;
+        JSFunction constructor = context.helper("_" + jsConstructor,
                 new String[] {"buffer,byteOffset"},
-                "return new " + jsConstructor + "(buffer,byteOffset);",
-                null, 0);
+                "return new " + jsConstructor + "(buffer,byteOffset);");
         JSValue newArray = constructor.call(null,buffer.getJSObject(),byteOffset);
         valueRef = newArray.valueRef();
         protect(context.ctxRef(), valueRef);
         context.persistObject(this);
     }
-    protected JSTypedArray(JSArrayBuffer buffer, String jsConstructor, Class<T> cls) {
+    protected JSTypedArray(JSArrayBuffer buffer, String jsConstructor,
+                        Class<T> cls, int elementType) {
         super(buffer.getJSObject().getContext(),cls);
-        JSFunction constructor = new JSFunction(context,"_" + jsConstructor,
+        this.elementType = elementType;
+        JSFunction constructor = context.helper("_" + jsConstructor,
                 new String[] {"buffer"},
-                "return new " + jsConstructor + "(buffer);",
-                null, 0);
+                "return new " + jsConstructor + "(buffer);");
         JSValue newArray = constructor.call(null,buffer.getJSObject());
         valueRef = newArray.valueRef();
         protect(context.ctxRef(), valueRef);
         context.persistObject(this);
     }
-    protected JSTypedArray(long objRef, JSContext ctx, Class<T> cls) {
+    protected JSTypedArray(long objRef, JSContext ctx, Class<T> cls, int elementType) {
         super(objRef,ctx,cls);
+        this.elementType = elementType;
     }
     @SuppressWarnings("unchecked")
-    protected JSTypedArray(JSTypedArray superList, int leftBuffer, int rightBuffer, Class<T> cls) {
+    protected JSTypedArray(JSTypedArray superList, int leftBuffer, int rightBuffer,
+                        Class<T> cls, int elementType) {
         super(superList,leftBuffer,rightBuffer,cls);
+        this.elementType = elementType;
     }
 
     /**
@@ -197,20 +211,157 @@ public abstract class JSTypedArray<T> extends JSBaseArray<T> {
         return property("byteOffset").toNumber().intValue();
     }
 
+    /* Element types understood by the native bulk copy, see JSTypedArray.cpp */
+    static final int TYPE_INT8 = 0;
+    static final int TYPE_UINT8 = 1;
+    static final int TYPE_UINT8_CLAMPED = 2;
+    static final int TYPE_INT16 = 3;
+    static final int TYPE_UINT16 = 4;
+    static final int TYPE_INT32 = 5;
+    static final int TYPE_UINT32 = 6;
+    static final int TYPE_FLOAT32 = 7;
+    static final int TYPE_FLOAT64 = 8;
+    private static final int [] BYTES_PER_ELEMENT = { 1, 1, 1, 2, 2, 4, 4, 4, 8 };
+
+    private final int elementType;
+
+    int elementType() {
+        return elementType;
+    }
+
+    private abstract class JNIReturnClass extends JNIReturnObject implements Runnable {
+    }
+
+    /**
+     * Copies the contents of this typed array into a new direct ByteBuffer in native byte
+     * order, using a single trip to the JavaScript thread.  The buffer is a snapshot; changes
+     * to it are not reflected in the typed array until written back with write().
+     * @return a direct buffer of size() * BYTES_PER_ELEMENT bytes, positioned at 0
+     * @since 3.1
+     */
+    public ByteBuffer toByteBuffer() {
+        final int type = elementType();
+        final int offset = elementOffset();
+        final int count = size();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(count * BYTES_PER_ELEMENT[type])
+                .order(ByteOrder.nativeOrder());
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override
+            public void run() {
+                copyToBuffer(context.ctxRef(), valueRef, type, offset, count, buffer, this);
+            }
+        };
+        context.sync(runnable);
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+        }
+        return buffer;
+    }
+
+    /**
+     * Copies elements from 'src' into this typed array, starting at element 0, using a single
+     * trip to the JavaScript thread.  Elements are read in native byte order from the buffer's
+     * position up to its limit, or up to size() elements, whichever is fewer.  The buffer's
+     * position is not changed.
+     * @param src  the buffer to copy from
+     * @since 3.1
+     */
+    public void write(ByteBuffer src) {
+        final int type = elementType();
+        final int offset = elementOffset();
+        final int count = Math.min(size(), src.remaining() / BYTES_PER_ELEMENT[type]);
+        final ByteBuffer buffer;
+        if (src.isDirect() && src.position() == 0) {
+            buffer = src;
+        } else {
+            buffer = ByteBuffer.allocateDirect(count * BYTES_PER_ELEMENT[type]);
+            ByteBuffer slice = src.duplicate();
+            slice.limit(slice.position() + buffer.capacity());
+            buffer.put(slice);
+        }
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override
+            public void run() {
+                copyFromBuffer(context.ctxRef(), valueRef, type, offset, count, buffer, this);
+            }
+        };
+        context.sync(runnable);
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+        }
+    }
+
+    /**
+     * Copies 'len' elements starting at element 'offset' into the primitive array 'dst',
+     * starting at 'dstOff', in a single native call.  Used by the typed get() methods of each
+     * subclass.
+     * @param offset  the first element to copy
+     * @param dst  a primitive array of the subclass's element type
+     * @param dstOff  the first index in 'dst' to copy to
+     * @param len  the number of elements to copy
+     * @since 3.1
+     */
+    protected void getElements(int offset, final Object dst, final int dstOff, final int len) {
+        checkRegion(offset, Array.getLength(dst), dstOff, len);
+        final int type = elementType();
+        final int start = elementOffset() + offset;
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override
+            public void run() {
+                copyToArray(context.ctxRef(), valueRef, type, start, len, dst, dstOff, this);
+            }
+        };
+        context.sync(runnable);
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+        }
+    }
+
+    /**
+     * Copies 'len' elements from the primitive array 'src', starting at 'srcOff', into this
+     * typed array starting at element 'offset', in a single native call.  Used by the typed
+     * set() methods of each subclass.
+     * @param offset  the first element to copy to
+     * @param src  a primitive array of the subclass's element type
+     * @param srcOff  the first index in 'src' to copy from
+     * @param len  the number of elements to copy
+     * @since 3.1
+     */
+    protected void setElements(int offset, final Object src, final int srcOff, final int len) {
+        checkRegion(offset, Array.getLength(src), srcOff, len);
+        final int type = elementType();
+        final int start = elementOffset() + offset;
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override
+            public void run() {
+                copyFromArray(context.ctxRef(), valueRef, type, start, len, src, srcOff, this);
+            }
+        };
+        context.sync(runnable);
+        if (runnable.exception != 0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+        }
+    }
+
+    private void checkRegion(int offset, int arrayLength, int arrayOff, int len) {
+        if (offset < 0 || len < 0 || arrayOff < 0 || offset > size() - len ||
+                arrayOff > arrayLength - len) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
     @Override
     protected JSValue arrayElement(final int index) {
-        JSFunction getElement = new JSFunction(context,"_getElement",new String[]{"thiz","index"},
-                "return thiz[index]",
-                null, 0);
+        JSFunction getElement = context.helper("_getElement",new String[]{"thiz","index"},
+                "return thiz[index]");
         return getElement.call(null,this,index);
     }
 
     @Override
     protected void arrayElement(final int index, final T value) {
-        JSFunction setElement = new JSFunction(context,"_setElement",
+        JSFunction setElement = context.helper("_setElement",
                 new String[]{"thiz","index","value"},
-                "thiz[index] = value",
-                null, 0);
+                "thiz[index] = value");
         setElement.call(null,this,index,value);
     }
 
@@ -236,4 +387,13 @@ public abstract class JSTypedArray<T> extends JSBaseArray<T> {
         JSValue subarray = property("subarray").toFunction().call(this,begin).toObject();
         return (JSTypedArray<T>) subarray.toJSArray();
     }
+
+    protected static native void copyToBuffer(long ctx, long object, int type, int offset,
+                                              int count, ByteBuffer buffer, JNIReturnObject out);
+    protected static native void copyFromBuffer(long ctx, long object, int type, int offset,
+                                                int count, ByteBuffer buffer, JNIReturnObject out);
+    protected static native void copyToArray(long ctx, long object, int type, int offset,
+                                             int count, Object dst, int dstOff, JNIReturnObject out);
+    protected static native void copyFromArray(long ctx, long object, int type, int offset,
+                                               int count, Object src, int srcOff, JNIReturnObject out);
 }
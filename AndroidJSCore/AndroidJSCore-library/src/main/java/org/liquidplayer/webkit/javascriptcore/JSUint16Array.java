@@ -34,6 +34,8 @@ package org.liquidplayer.webkit.javascriptcore;
 
 import android.support.annotation.NonNull;
 
+import java.nio.ShortBuffer;
+
 /**
  * A convenience class for handling JavaScript's Uint16Array
  * @since 3.0
@@ -46,7 +48,7 @@ public class JSUint16Array extends JSTypedArray<Short> {
      * @since 3.0
      */
     public JSUint16Array(JSContext ctx, int length) {
-        super(ctx,length,"Uint16Array",Short.class);
+        super(ctx,length,"Uint16Array",Short.class,TYPE_UINT16);
     }
 
     /**
@@ -55,7 +57,7 @@ public class JSUint16Array extends JSTypedArray<Short> {
      * @since 3.0
      */
     public JSUint16Array(JSTypedArray tarr) {
-        super(tarr,"Uint16Array",Short.class);
+        super(tarr,"Uint16Array",Short.class,TYPE_UINT16);
     }
     /**
      * Creates new typed array as if by TypedArray.from()
@@ -64,7 +66,7 @@ public class JSUint16Array extends JSTypedArray<Short> {
      * @since 3.0
      */
     public JSUint16Array(JSContext ctx, Object object) {
-        super(ctx,object,"Uint16Array",Short.class);
+        super(ctx,object,"Uint16Array",Short.class,TYPE_UINT16);
     }
 
     /**
@@ -75,7 +77,7 @@ public class JSUint16Array extends JSTypedArray<Short> {
      * @since 3.0
      */
     public JSUint16Array(JSArrayBuffer buffer, int byteOffset, int length) {
-        super(buffer,byteOffset,length,"Uint16Array",Short.class);
+        super(buffer,byteOffset,length,"Uint16Array",Short.class,TYPE_UINT16);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -84,7 +86,7 @@ public class JSUint16Array extends JSTypedArray<Short> {
      * @since 3.0
      */
     public JSUint16Array(JSArrayBuffer buffer, int byteOffset) {
-        super(buffer,byteOffset,"Uint16Array",Short.class);
+        super(buffer,byteOffset,"Uint16Array",Short.class,TYPE_UINT16);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -92,7 +94,7 @@ public class JSUint16Array extends JSTypedArray<Short> {
      * @since 3.0
      */
     public JSUint16Array(JSArrayBuffer buffer) {
-        super(buffer,"Uint16Array",Short.class);
+        super(buffer,"Uint16Array",Short.class,TYPE_UINT16);
     }
 
     /**
@@ -102,7 +104,7 @@ public class JSUint16Array extends JSTypedArray<Short> {
      * @since 3.0
      */
     public JSUint16Array(long valueRef, JSContext ctx) {
-        super(valueRef,ctx,Short.class);
+        super(valueRef,ctx,Short.class,TYPE_UINT16);
     }
 
     /**
@@ -126,7 +128,7 @@ public class JSUint16Array extends JSTypedArray<Short> {
     }
 
     private JSUint16Array(JSUint16Array superList, int leftBuffer, int rightBuffer) {
-        super(superList,leftBuffer,rightBuffer,Short.class);
+        super(superList,leftBuffer,rightBuffer,Short.class,TYPE_UINT16);
     }
     /**
      * @see java.util.List#subList(int, int)
@@ -140,4 +142,43 @@ public class JSUint16Array extends JSTypedArray<Short> {
         }
         return new JSUint16Array(this,fromIndex,size()-toIndex);
     }
+
+    /**
+     * Copies the contents of this array into a new direct ShortBuffer, using a single trip to the
+     * JavaScript thread.  The buffer is a snapshot; write changes back with write(ByteBuffer).
+     * Elements are unsigned; use (value &amp; 0xffff) to read them.
+     * @return a ShortBuffer view of a direct buffer in native byte order
+     * @since 3.1
+     */
+    public ShortBuffer toShortBuffer() {
+        return toByteBuffer().asShortBuffer();
+    }
+
+    /**
+     * Copies 'len' elements, starting at element 'offset', into 'dst' in a single native call.
+     * Elements are unsigned; use (value &amp; 0xffff) to read them.
+     * @param offset  the first element of this array to copy
+     * @param dst  the array to copy to
+     * @param dstOff  the first index of 'dst' to copy to
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void get(int offset, short[] dst, int dstOff, int len) {
+        getElements(offset, dst, dstOff, len);
+    }
+
+    /**
+     * Copies 'len' elements from 'src' into this array, starting at element 'offset', in a
+     * single native call
+     * @param offset  the first element of this array to copy to
+     * @param src  the array to copy from
+     * @param srcOff  the first index of 'src' to copy from
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void set(int offset, short[] src, int srcOff, int len) {
+        setElements(offset, src, srcOff, len);
+    }
 }
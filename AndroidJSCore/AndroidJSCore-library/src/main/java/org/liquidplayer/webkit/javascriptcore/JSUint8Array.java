@@ -46,7 +46,7 @@ public class JSUint8Array extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8Array(JSContext ctx, int length) {
-        super(ctx,length,"Uint8Array",Byte.class);
+        super(ctx,length,"Uint8Array",Byte.class,TYPE_UINT8);
     }
 
     /**
@@ -55,7 +55,7 @@ public class JSUint8Array extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8Array(JSTypedArray tarr) {
-        super(tarr,"Uint8Array",Byte.class);
+        super(tarr,"Uint8Array",Byte.class,TYPE_UINT8);
     }
 
     /**
@@ -65,7 +65,7 @@ public class JSUint8Array extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8Array(JSContext ctx, Object object) {
-        super(ctx,object,"Uint8Array",Byte.class);
+        super(ctx,object,"Uint8Array",Byte.class,TYPE_UINT8);
     }
 
     /**
@@ -76,7 +76,7 @@ public class JSUint8Array extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8Array(JSArrayBuffer buffer, int byteOffset, int length) {
-        super(buffer,byteOffset,length,"Uint8Array",Byte.class);
+        super(buffer,byteOffset,length,"Uint8Array",Byte.class,TYPE_UINT8);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -85,7 +85,7 @@ public class JSUint8Array extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8Array(JSArrayBuffer buffer, int byteOffset) {
-        super(buffer,byteOffset,"Uint8Array",Byte.class);
+        super(buffer,byteOffset,"Uint8Array",Byte.class,TYPE_UINT8);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -93,7 +93,7 @@ public class JSUint8Array extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8Array(JSArrayBuffer buffer) {
-        super(buffer,"Uint8Array",Byte.class);
+        super(buffer,"Uint8Array",Byte.class,TYPE_UINT8);
     }
 
     /**
@@ -103,7 +103,7 @@ public class JSUint8Array extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8Array(long valueRef, JSContext ctx) {
-        super(valueRef,ctx,Byte.class);
+        super(valueRef,ctx,Byte.class,TYPE_UINT8);
     }
 
     /**
@@ -127,7 +127,7 @@ public class JSUint8Array extends JSTypedArray<Byte> {
     }
 
     private JSUint8Array(JSUint8Array superList, int leftBuffer, int rightBuffer) {
-        super(superList,leftBuffer,rightBuffer,Byte.class);
+        super(superList,leftBuffer,rightBuffer,Byte.class,TYPE_UINT8);
     }
     /**
      * @see java.util.List#subList(int, int)
@@ -142,4 +142,32 @@ public class JSUint8Array extends JSTypedArray<Byte> {
         return new JSUint8Array(this,fromIndex,size()-toIndex);
     }
 
+
+    /**
+     * Copies 'len' elements, starting at element 'offset', into 'dst' in a single native call.
+     * Elements are unsigned; use (value &amp; 0xff) to read them.
+     * @param offset  the first element of this array to copy
+     * @param dst  the array to copy to
+     * @param dstOff  the first index of 'dst' to copy to
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void get(int offset, byte[] dst, int dstOff, int len) {
+        getElements(offset, dst, dstOff, len);
+    }
+
+    /**
+     * Copies 'len' elements from 'src' into this array, starting at element 'offset', in a
+     * single native call
+     * @param offset  the first element of this array to copy to
+     * @param src  the array to copy from
+     * @param srcOff  the first index of 'src' to copy from
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void set(int offset, byte[] src, int srcOff, int len) {
+        setElements(offset, src, srcOff, len);
+    }
 }
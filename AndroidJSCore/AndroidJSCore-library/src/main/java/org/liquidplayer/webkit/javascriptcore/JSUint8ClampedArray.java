@@ -46,7 +46,7 @@ public class JSUint8ClampedArray extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8ClampedArray(JSContext ctx, int length) {
-        super(ctx,length,"Uint8ClampedArray",Byte.class);
+        super(ctx,length,"Uint8ClampedArray",Byte.class,TYPE_UINT8_CLAMPED);
     }
 
     /**
@@ -55,7 +55,7 @@ public class JSUint8ClampedArray extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8ClampedArray(JSTypedArray tarr) {
-        super(tarr,"Uint8ClampedArray",Byte.class);
+        super(tarr,"Uint8ClampedArray",Byte.class,TYPE_UINT8_CLAMPED);
     }
 
     /**
@@ -65,7 +65,7 @@ public class JSUint8ClampedArray extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8ClampedArray(JSContext ctx, Object object) {
-        super(ctx,object,"Uint8ClampedArray",Byte.class);
+        super(ctx,object,"Uint8ClampedArray",Byte.class,TYPE_UINT8_CLAMPED);
     }
 
     /**
@@ -76,7 +76,7 @@ public class JSUint8ClampedArray extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8ClampedArray(JSArrayBuffer buffer, int byteOffset, int length) {
-        super(buffer,byteOffset,length,"Uint8ClampedArray",Byte.class);
+        super(buffer,byteOffset,length,"Uint8ClampedArray",Byte.class,TYPE_UINT8_CLAMPED);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -85,7 +85,7 @@ public class JSUint8ClampedArray extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8ClampedArray(JSArrayBuffer buffer, int byteOffset) {
-        super(buffer,byteOffset,"Uint8ClampedArray",Byte.class);
+        super(buffer,byteOffset,"Uint8ClampedArray",Byte.class,TYPE_UINT8_CLAMPED);
     }
     /**
      * Creates a typed array from a JSArrayBuffer
@@ -93,7 +93,7 @@ public class JSUint8ClampedArray extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8ClampedArray(JSArrayBuffer buffer) {
-        super(buffer,"Uint8ClampedArray",Byte.class);
+        super(buffer,"Uint8ClampedArray",Byte.class,TYPE_UINT8_CLAMPED);
     }
 
     /**
@@ -103,7 +103,7 @@ public class JSUint8ClampedArray extends JSTypedArray<Byte> {
      * @since 3.0
      */
     public JSUint8ClampedArray(long valueRef, JSContext ctx) {
-        super(valueRef,ctx,Byte.class);
+        super(valueRef,ctx,Byte.class,TYPE_UINT8_CLAMPED);
     }
 
     /**
@@ -127,7 +127,7 @@ public class JSUint8ClampedArray extends JSTypedArray<Byte> {
     }
 
     private JSUint8ClampedArray(JSUint8ClampedArray superList, int leftBuffer, int rightBuffer) {
-        super(superList,leftBuffer,rightBuffer,Byte.class);
+        super(superList,leftBuffer,rightBuffer,Byte.class,TYPE_UINT8_CLAMPED);
     }
     /**
      * @see java.util.List#subList(int, int)
@@ -141,4 +141,32 @@ public class JSUint8ClampedArray extends JSTypedArray<Byte> {
         }
         return new JSUint8ClampedArray(this,fromIndex,size()-toIndex);
     }
+
+    /**
+     * Copies 'len' elements, starting at element 'offset', into 'dst' in a single native call.
+     * Elements are unsigned; use (value &amp; 0xff) to read them.
+     * @param offset  the first element of this array to copy
+     * @param dst  the array to copy to
+     * @param dstOff  the first index of 'dst' to copy to
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void get(int offset, byte[] dst, int dstOff, int len) {
+        getElements(offset, dst, dstOff, len);
+    }
+
+    /**
+     * Copies 'len' elements from 'src' into this array, starting at element 'offset', in a
+     * single native call
+     * @param offset  the first element of this array to copy to
+     * @param src  the array to copy from
+     * @param srcOff  the first index of 'src' to copy from
+     * @param len  the number of elements to copy
+     * @throws IndexOutOfBoundsException if either region is out of bounds
+     * @since 3.1
+     */
+    public void set(int offset, byte[] src, int srcOff, int len) {
+        setElements(offset, src, srcOff, len);
+    }
 }
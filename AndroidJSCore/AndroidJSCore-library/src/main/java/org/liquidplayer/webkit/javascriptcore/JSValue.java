@@ -32,13 +32,20 @@
 */
 package org.liquidplayer.webkit.javascriptcore;
 
-import android.os.AsyncTask;
 import android.os.Looper;
 import android.util.Log;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A JavaScript value
@@ -47,7 +54,8 @@ import java.util.concurrent.ExecutionException;
 public class JSValue {
 
     /**
-     * Used in communicating with JavaScriptCore JNI.
+     * Used in communicating with JavaScriptCore JNI.  Natives fill in a caller-supplied
+     * instance rather than allocating a new one on every call.
      * Clients do not need to use this.
      */
     protected static class JNIReturnObject {
@@ -71,63 +79,234 @@ public class JSValue {
 
     protected static class JSWorkerQueue {
         public JSWorkerQueue(final Runnable monitor) {
+            this(monitor, null);
+        }
+        /**
+         * Creates a queue whose thread runs 'idle' each time it runs out of work, before parking
+         * @param monitor  run after every task
+         * @param idle  run whenever the queue's thread goes idle, may be null
+         */
+        public JSWorkerQueue(final Runnable monitor, final Runnable idle) {
             mMonitor = monitor;
+            mIdle = idle;
         }
         final Runnable mMonitor;
+        final Runnable mIdle;
+        private volatile JSThread mThread = null;
 
-        private class JSTask extends AsyncTask<Runnable, Void, JSException> {
-            @Override
-            public JSException doInBackground(Runnable ... params) {
+        private static class JSTask {
+            JSTask(Runnable runnable, Runnable monitor, Thread waiter) {
+                mRunnable = runnable;
+                mMonitor = monitor;
+                mWaiter = waiter;
+            }
+            private final Runnable mRunnable;
+            private final Runnable mMonitor;
+            private final Thread mWaiter;
+            private RuntimeException mException = null;
+            private Error mError = null;
+            private volatile boolean mDone = false;
+
+            void run() {
                 try {
-                    params[0].run();
+                    mRunnable.run();
                     mMonitor.run();
-                } catch (JSException e) {
-                    return e;
+                } catch (RuntimeException e) {
+                    // Hand failures back to the waiting caller; there is none for async tasks
+                    if (mWaiter != null) mException = e;
+                    else Log.e("JSWorkerQueue", String.valueOf(e));
+                } catch (Error e) {
+                    // Never let an error kill the thread
+                    if (mWaiter != null) mError = e;
+                    else Log.e("JSWorkerQueue", String.valueOf(e));
+                } finally {
+                    mDone = true;
+                    if (mWaiter != null) {
+                        LockSupport.unpark(mWaiter);
+                    }
                 }
-                return null;
             }
         }
 
-        public void sync(final Runnable runnable) {
-            if (Looper.myLooper() == Looper.getMainLooper()) {
-                try {
-                    JSException e = new JSTask().executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, runnable).get();
-                    if (e != null) throw e;
-                } catch (ExecutionException e) {
-                    Log.e("JSWorkerQueue", e.getMessage());
-                } catch (InterruptedException e) {
-                    Thread.interrupted();
+        /**
+         * A single long-lived thread which executes the tasks posted to a queue.  The thread
+         * deliberately holds no reference to the queue (or its context), so that the context can
+         * still be collected while the thread is parked.
+         */
+        private static class JSThread extends Thread {
+            JSThread(Runnable idle) {
+                super("JSWorkerQueue");
+                setDaemon(true);
+                mIdle = idle;
+            }
+            private final Runnable mIdle;
+            private final ConcurrentLinkedQueue<JSTask> mQueue = new ConcurrentLinkedQueue<>();
+            private volatile boolean mQuit = false;
+
+            void post(JSTask task) {
+                mQueue.offer(task);
+                LockSupport.unpark(this);
+                if (mQuit) {
+                    // The thread may already have finished its last drain; run what is left
+                    // here, so that nobody waits forever
+                    JSTask t;
+                    while ((t = mQueue.poll()) != null) {
+                        t.run();
+                    }
                 }
-            } else {
+            }
+
+            void quit() {
+                mQuit = true;
+                LockSupport.unpark(this);
+            }
+
+            @Override
+            public void run() {
+                JSTask task;
+                while (!mQuit) {
+                    task = mQueue.poll();
+                    if (task == null) {
+                        if (mIdle != null) {
+                            try {
+                                mIdle.run();
+                            } catch (RuntimeException | Error e) {
+                                Log.e("JSWorkerQueue", String.valueOf(e));
+                            }
+                            if (!mQueue.isEmpty()) continue;
+                        }
+                        LockSupport.park(this);
+                    } else {
+                        task.run();
+                    }
+                }
+                // Release anyone still waiting on us
+                while ((task = mQueue.poll()) != null) {
+                    task.run();
+                }
+            }
+        }
+
+        private JSThread thread() {
+            JSThread thread = mThread;
+            if (thread == null) {
+                synchronized (this) {
+                    if (mThread == null) {
+                        mThread = new JSThread(mIdle);
+                        mThread.start();
+                    }
+                    thread = mThread;
+                }
+            }
+            return thread;
+        }
+
+        private boolean isInline() {
+            return Thread.currentThread() == mThread ||
+                    Looper.myLooper() != Looper.getMainLooper();
+        }
+
+        public void sync(final Runnable runnable) {
+            if (isInline()) {
                 runnable.run();
                 mMonitor.run();
+            } else {
+                JSTask task = new JSTask(runnable, mMonitor, Thread.currentThread());
+                thread().post(task);
+                boolean interrupted = false;
+                while (!task.mDone) {
+                    LockSupport.park(this);
+                    if (Thread.interrupted()) interrupted = true;
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                if (task.mError != null) throw task.mError;
+                if (task.mException != null) throw task.mException;
             }
         }
 
         public void async(final Runnable runnable) {
-            if (Looper.myLooper() == Looper.getMainLooper()) {
-                new JSTask().executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, runnable);
-            } else {
+            if (isInline()) {
                 runnable.run();
                 mMonitor.run();
+            } else {
+                thread().post(new JSTask(runnable, mMonitor, null));
             }
         }
 
         public void quit() {
-
+            JSThread thread;
+            synchronized (this) {
+                // A later sync() or async() starts a fresh thread
+                thread = mThread;
+                mThread = null;
+            }
+            if (thread != null) {
+                thread.quit();
+            }
         }
     }
 
     protected static class JSString {
 
-        private static final JSWorkerQueue workerQueue = new JSWorkerQueue(new Runnable() {
-            @Override
-            public void run() {
+        /*
+         * JavaScriptCore strings are immutable and not bound to any context, so they are
+         * created, converted and released directly on the calling thread
+         */
+
+        /*
+         * Strings are released once collected, a few at a time as new strings are created,
+         * rather than from a finalizer
+         */
+        private static final int DRAIN_BATCH_SIZE = 16;
+        private static final ReferenceQueue<JSString> queue = new ReferenceQueue<>();
+        private static final JSReclaimer.HandleList handles = new JSReclaimer.HandleList();
+
+        private static void drain() {
+            Reference<? extends JSString> reference;
+            for (int i=0; i<DRAIN_BATCH_SIZE && (reference = queue.poll()) != null; i++) {
+                JSReclaimer.Handle<?> handle = (JSReclaimer.Handle<?>) reference;
+                if (handles.remove(handle)) {
+                    release(handle.ref);
+                }
             }
-        });
+        }
 
-        private abstract class JNIStringReturnClass implements Runnable {
-            String string;
+        private void track() {
+            drain();
+            if (stringRef != 0) {
+                handles.add(new JSReclaimer.Handle<>(this, queue, stringRef));
+            }
+        }
+
+        private static final int INTERNED_STRINGS = 512;
+        private static final Map<String,JSString> interned =
+                new LinkedHashMap<String,JSString>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String,JSString> eldest) {
+                        return size() > INTERNED_STRINGS;
+                    }
+                };
+
+        /**
+         * Gets a JavaScript string for 's' from a process-wide, least-recently-used cache of
+         * the most recently used strings (typically property names), creating it only if it
+         * is not already cached.  An evicted string is released once it is no longer in use.
+         * @param s  The Java string
+         * @return  a JSString for 's'
+         * @since 3.1
+         */
+        public static JSString intern(String s) {
+            if (s == null) return new JSString((String) null);
+            synchronized (interned) {
+                JSString string = interned.get(s);
+                if (string == null) {
+                    string = new JSString(s);
+                    interned.put(s, string);
+                }
+                return string;
+            }
         }
 
         protected Long stringRef;
@@ -140,12 +319,8 @@ public class JSValue {
         public JSString(final String s) {
             if (s==null) stringRef = 0L;
             else {
-                workerQueue.sync(new Runnable() {
-                    @Override
-                    public void run() {
-                        stringRef = createWithCharacters(s);
-                    }
-                });
+                stringRef = createWithCharacters(s);
+                track();
             }
         }
         /**
@@ -154,24 +329,48 @@ public class JSValue {
          */
         public JSString(Long stringRef) {
             this.stringRef = stringRef;
-        }
-        @Override
-        protected void finalize() throws Throwable {
-            super.finalize();
-            if (stringRef != 0)
-                release(stringRef);
+            track();
         }
 
         @Override
         public String toString() {
-            JNIStringReturnClass payload = new JNIStringReturnClass() {
-                @Override
-                public void run() {
-                    string = JSString.this.toString(stringRef);
-                }
-            };
-            workerQueue.sync(payload);
-            return payload.string;
+            return (stringRef == 0) ? null : toString(stringRef);
+        }
+
+        /**
+         * Gets the length of the string in UTF-16 code units
+         * @return  the length of the string
+         * @since 3.1
+         */
+        public int length() {
+            return (stringRef == 0) ? 0 : getLength(stringRef);
+        }
+
+        /**
+         * Copies the string into 'dst' at its position, without creating a Java String, and
+         * advances the position.  If 'dst' does not have room for the whole string, only the
+         * first dst.remaining() characters are copied.
+         * @param dst  the buffer to copy into
+         * @return  the length of the whole string
+         * @since 3.1
+         */
+        public int getChars(CharBuffer dst) {
+            int length = length();
+            int count = Math.min(length, dst.remaining());
+            if (count == 0) return length;
+            if (dst.hasArray()) {
+                getCharsToArray(stringRef, 0, count, dst.array(),
+                        dst.arrayOffset() + dst.position());
+            } else if (dst.isDirect() && dst.order() == ByteOrder.nativeOrder()) {
+                getCharsToBuffer(stringRef, 0, count, dst, dst.position());
+            } else {
+                char [] chars = new char[count];
+                getCharsToArray(stringRef, 0, count, chars, 0);
+                dst.put(chars);
+                return length;
+            }
+            dst.position(dst.position() + count);
+            return length;
         }
 
         /**
@@ -185,12 +384,15 @@ public class JSValue {
 
         protected native long createWithCharacters(String str);
         protected native long retain(long strRef);
-        protected native void release(long stringRef);
+        protected static native void release(long stringRef);
         protected native boolean isEqual(long a, long b);
         protected native String toString(long strRef);
 
-        @SuppressWarnings("unused")
-        protected native int getLength(long stringRef);
+        protected static native int getLength(long stringRef);
+        protected static native void getCharsToArray(long stringRef, int start, int count,
+                                                     char[] dst, int dstOff);
+        protected static native void getCharsToBuffer(long stringRef, int start, int count,
+                                                      CharBuffer dst, int dstOff);
         @SuppressWarnings("unused")
         protected native long createWithUTF8CString(String str);
         @SuppressWarnings("unused")
@@ -199,13 +401,11 @@ public class JSValue {
         protected native boolean isEqualToUTF8CString(long a, String b);
     }
 
-    private abstract class JNIReturnClass implements Runnable {
-        JNIReturnObject jni;
+    private abstract class JNIReturnClass extends JNIReturnObject implements Runnable {
     }
 
     protected Long valueRef = 0L;
     protected JSContext context = null;
-    protected Boolean isDefunct = false;
 
     /* Constructors */
     /**
@@ -222,12 +422,18 @@ public class JSValue {
      */
     public JSValue(final JSContext ctx) {
         context = ctx;
+        if (isPlain()) {
+            setImmediate(TYPE_UNDEFINED, Double.NaN);
+            return;
+        }
         context.sync(new Runnable() {
             @Override
             public void run() {
                 valueRef = makeUndefined(context.ctxRef());
+                setType(TYPE_UNDEFINED);
             }
         });
+        context.register(this);
     }
     /**
      * Creates a new JavaScript value from a Java value.  Classes supported are:
@@ -237,48 +443,79 @@ public class JSValue {
      * @param val  The Java value
      * @since 1.0
      */
-    @SuppressWarnings("unchecked")
     public JSValue(JSContext ctx, final Object val) {
         context = ctx;
-        context.sync(new Runnable() {
+        if (isPlain()) {
+            if (val == null) {
+                setImmediate(TYPE_NULL, 0);
+                return;
+            } else if (val instanceof Boolean) {
+                setImmediate(TYPE_BOOLEAN, (Boolean)val ? 1 : 0);
+                return;
+            } else if (val instanceof Float) {
+                setImmediate(TYPE_NUMBER, Double.valueOf(val.toString()));
+                return;
+            } else if (val instanceof Double || val instanceof Integer || val instanceof Long ||
+                    val instanceof Byte || val instanceof Short) {
+                setImmediate(TYPE_NUMBER, ((Number)val).doubleValue());
+                return;
+            } else if (val instanceof JSValue && ((JSValue)val).immediate) {
+                JSValue other = (JSValue)val;
+                setImmediate(other.type, other.immediateValue);
+                return;
+            }
+        }
+        JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
                 if (val == null) {
                     valueRef = makeNull(context.ctxRef());
+                    setType(TYPE_NULL);
                 } else if (val instanceof JSValue) {
                     valueRef = ((JSValue) val).valueRef();
                     protect(context.ctxRef(), valueRef);
-                } else if (val instanceof Map) {
-                    valueRef = new JSObjectPropertiesMap(context, (Map)val, Object.class).getJSObject().valueRef();
-                    protect(context.ctxRef(), valueRef);
-                } else if (val instanceof List) {
-                    valueRef = new JSArray<>(context, (List) val, JSValue.class).valueRef();
-                    protect(context.ctxRef(), valueRef);
+                } else if (val instanceof Map || val instanceof List || val instanceof Object[]) {
+                    // Converts the whole graph in one native call
+                    makeFromJava(context.ctxRef(), val, context.getMaxConversionDepth(), this);
+                    valueRef = (reference != 0) ? reference : makeUndefined(context.ctxRef());
                 } else if (val.getClass().isArray()) {
                     valueRef = new JSArray<>(context, (Object[])val, JSValue.class).valueRef();
                     protect(context.ctxRef(), valueRef);
                 } else if (val instanceof Boolean) {
                     valueRef = makeBoolean(context.ctxRef(), (Boolean)val);
+                    setType(TYPE_BOOLEAN);
                 } else if (val instanceof Double) {
                     valueRef = makeNumber(context.ctxRef(), (Double)val);
+                    setType(TYPE_NUMBER);
                 } else if (val instanceof Float) {
                     valueRef = makeNumber(context.ctxRef(), Double.valueOf(val.toString()));
+                    setType(TYPE_NUMBER);
                 } else if (val instanceof Integer ) {
                     valueRef = makeNumber(context.ctxRef(), ((Integer)val).doubleValue());
+                    setType(TYPE_NUMBER);
                 } else if (val instanceof Long) {
                     valueRef = makeNumber(context.ctxRef(), ((Long)val).doubleValue());
+                    setType(TYPE_NUMBER);
                 } else if (val instanceof Byte) {
                     valueRef = makeNumber(context.ctxRef(), ((Byte)val).doubleValue());
+                    setType(TYPE_NUMBER);
                 } else if (val instanceof Short) {
                     valueRef = makeNumber(context.ctxRef(), ((Short)val).doubleValue());
+                    setType(TYPE_NUMBER);
                 } else if (val instanceof String) {
                     JSString s = new JSString((String)val);
                     valueRef = makeString(context.ctxRef(), s.stringRef);
+                    setType(TYPE_STRING);
                 } else {
                     valueRef = makeUndefined(context.ctxRef());
                 }
             }
-        });
+        };
+        context.sync(runnable);
+        context.register(this);
+        if (runnable.exception!=0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+        }
     }
 
     /**
@@ -289,41 +526,142 @@ public class JSValue {
      */
     protected JSValue(final long valueRef, JSContext ctx) {
         context = ctx;
-        context.sync(new Runnable() {
+        final boolean inlined = isPlain();
+        context.sync(new JNIReturnClass() {
             @Override
             public void run() {
                 if (valueRef == 0) {
-                    JSValue.this.valueRef = makeUndefined(context.ctxRef());
+                    if (inlined) setImmediate(TYPE_UNDEFINED, Double.NaN);
+                    else JSValue.this.valueRef = makeUndefined(context.ctxRef());
+                    return;
                 }
-                else {
+                int type = wrap(context.ctxRef(), valueRef, inlined, this);
+                if (inlined && type == TYPE_NUMBER) {
+                    setImmediate(type, number);
+                } else if (inlined && type == TYPE_BOOLEAN) {
+                    setImmediate(type, bool ? 1 : 0);
+                } else if (inlined && type == TYPE_NULL) {
+                    setImmediate(type, 0);
+                } else if (inlined && type == TYPE_UNDEFINED) {
+                    setImmediate(type, Double.NaN);
+                } else {
                     JSValue.this.valueRef = valueRef;
-                    protect(context.ctxRef(), valueRef);
+                    setType(type);
                 }
             }
         });
+        if (!immediate) context.register(this);
     }
-    @Override
-    protected void finalize() throws Throwable {
-        super.finalize();
-        unprotect();
+
+    /* Numbers, booleans, null and undefined held by a plain JSValue (not a subclass) are kept
+     * in Java alone, as an immediate value.  They have no JavaScriptCore reference, and so need
+     * no protection, until an operation needs one; see valueRef(). */
+    private volatile boolean immediate = false;
+    private double immediateValue = 0;
+
+    private boolean isPlain() {
+        return getClass() == JSValue.class;
+    }
+
+    private void setImmediate(int type, double value) {
+        this.type = type;
+        immediateValue = value;
+        isProtected = false;
+        immediate = true;
+    }
+
+    private void materialize() {
+        context.sync(new Runnable() {
+            @Override
+            public void run() {
+                if (!immediate) return;
+                switch (type) {
+                    case TYPE_NUMBER:
+                        valueRef = makeNumber(context.ctxRef(), immediateValue);
+                        break;
+                    case TYPE_BOOLEAN:
+                        valueRef = makeBoolean(context.ctxRef(), immediateValue != 0);
+                        break;
+                    case TYPE_NULL:
+                        valueRef = makeNull(context.ctxRef());
+                        break;
+                    default:
+                        valueRef = makeUndefined(context.ctxRef());
+                }
+                typeRef = valueRef;
+                isProtected = true;
+                immediate = false;
+            }
+        });
+        context.register(this);
+    }
+
+    /* Converts an immediate value to a string as JavaScript would, or returns null if that
+     * needs JavaScriptCore */
+    private String immediateString() {
+        switch (type) {
+            case TYPE_UNDEFINED: return "undefined";
+            case TYPE_NULL:      return "null";
+            case TYPE_BOOLEAN:   return (immediateValue != 0) ? "true" : "false";
+            default:
+                if (immediateValue == Math.rint(immediateValue) &&
+                        Math.abs(immediateValue) < 1e15) {
+                    return Long.toString((long) immediateValue);
+                }
+                return null;
+        }
     }
 
     /* Testers */
+
+    /* JavaScriptCore's JSType values */
+    static final int TYPE_UNDEFINED = 0;
+    static final int TYPE_NULL      = 1;
+    static final int TYPE_BOOLEAN   = 2;
+    static final int TYPE_NUMBER    = 3;
+    static final int TYPE_STRING    = 4;
+    static final int TYPE_OBJECT    = 5;
+
+    private int type = -1;
+    private volatile long typeRef = 0L;
+
+    /**
+     * Gets the JavaScriptCore type of the value.  A value's type never changes, so it is
+     * fetched with a single native call the first time it is needed, and read from a field
+     * after that.
+     * @return  one of the TYPE_ constants
+     */
+    int type() {
+        if (immediate) return type;
+        final long ref = valueRef;
+        if (typeRef != ref || ref == 0) {
+            JNIReturnClass runnable = new JNIReturnClass() {
+                @Override
+                public void run() {
+                    number = getType(context.ctxRef(), ref);
+                }
+            };
+            context.sync(runnable);
+            setType((int) runnable.number);
+        }
+        return type;
+    }
+
+    /**
+     * Records the type of the current value, when it is already known
+     */
+    void setType(int type) {
+        this.type = type;
+        typeRef = valueRef;
+    }
+
     /**
      * Tests whether the value is undefined
      * @return  true if undefined, false otherwise
      * @since 1.0
      */
     public Boolean isUndefined() {
-        JNIReturnClass runnable = new JNIReturnClass() {
-            @Override
-            public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = isUndefined(context.ctxRef(), valueRef);
-            }
-        };
-        context.sync(runnable);
-        return runnable.jni.bool;
+        return type() == TYPE_UNDEFINED;
     }
     /**
      * Tests whether the value is null
@@ -331,15 +669,7 @@ public class JSValue {
      * @since 1.0
      */
     public Boolean isNull() {
-        JNIReturnClass runnable = new JNIReturnClass() {
-            @Override
-            public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = isNull(context.ctxRef(), valueRef);
-            }
-        };
-        context.sync(runnable);
-        return runnable.jni.bool;
+        return type() == TYPE_NULL;
     }
     /**
      * Tests whether the value is boolean
@@ -347,15 +677,7 @@ public class JSValue {
      * @since 1.0
      */
     public Boolean isBoolean() {
-        JNIReturnClass runnable = new JNIReturnClass() {
-            @Override
-            public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = isBoolean(context.ctxRef(), valueRef);
-            }
-        };
-        context.sync(runnable);
-        return runnable.jni.bool;
+        return type() == TYPE_BOOLEAN;
     }
     /**
      * Tests whether the value is a number
@@ -363,15 +685,7 @@ public class JSValue {
      * @since 1.0
      */
     public Boolean isNumber() {
-        JNIReturnClass runnable = new JNIReturnClass() {
-            @Override
-            public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = isNumber(context.ctxRef(), valueRef);
-            }
-        };
-        context.sync(runnable);
-        return runnable.jni.bool;
+        return type() == TYPE_NUMBER;
     }
     /**
      * Tests whether the value is a string
@@ -379,15 +693,7 @@ public class JSValue {
      * @since 1.0
      */
     public Boolean isString() {
-        JNIReturnClass runnable = new JNIReturnClass() {
-            @Override
-            public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = isString(context.ctxRef(), valueRef);
-            }
-        };
-        context.sync(runnable);
-        return runnable.jni.bool;
+        return type() == TYPE_STRING;
     }
     /**
      * Tests whether the value is an array
@@ -395,15 +701,15 @@ public class JSValue {
      * @since 2.2
      */
     public Boolean isArray() {
+        if (type() != TYPE_OBJECT) return false;
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = isArray(context.ctxRef(), valueRef);
+                bool = isArray(context.ctxRef(), valueRef);
             }
         };
         context.sync(runnable);
-        return runnable.jni.bool;
+        return runnable.bool;
     }
     /**
      * Tests whether the value is a date object
@@ -411,15 +717,15 @@ public class JSValue {
      * @since 2.2
      */
     public Boolean isDate() {
+        if (type() != TYPE_OBJECT) return false;
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = isDate(context.ctxRef(), valueRef);
+                bool = isDate(context.ctxRef(), valueRef);
             }
         };
         context.sync(runnable);
-        return runnable.jni.bool;
+        return runnable.bool;
     }
     /**
      * Tests whether the value is an object
@@ -427,15 +733,7 @@ public class JSValue {
      * @since 1.0
      */
     public Boolean isObject() {
-        JNIReturnClass runnable = new JNIReturnClass() {
-            @Override
-            public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = isObject(context.ctxRef(), valueRef);
-            }
-        };
-        context.sync(runnable);
-        return runnable.jni.bool;
+        return type() == TYPE_OBJECT;
     }
     /**
      * Tests whether a value in an instance of a constructor object
@@ -447,15 +745,15 @@ public class JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = isInstanceOfConstructor(context.ctxRef(), valueRef, constructor.valueRef());
+                isInstanceOfConstructor(context.ctxRef(), valueRef(), constructor.valueRef(), this);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.exception!=0) {
-            context.throwJSException(new JSException(new JSValue(runnable.jni.exception, context)));
-            runnable.jni.bool = false;
+        if (runnable.exception!=0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+            runnable.bool = false;
         }
-        return runnable.jni.bool;
+        return runnable.bool;
     }
 
     /* Comparators */
@@ -485,14 +783,17 @@ public class JSValue {
             otherJSValue = new JSValue(context, other);
         }
         final JSValue ojsv = otherJSValue;
+        if (immediate && ojsv.immediate && type == TYPE_NUMBER && ojsv.type == TYPE_NUMBER) {
+            return immediateValue == ojsv.immediateValue;
+        }
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = isEqual(context.ctxRef(), valueRef, ojsv.valueRef);
+                isEqual(context.ctxRef(), valueRef(), ojsv.valueRef(), this);
             }
         };
         context.sync(runnable);
-        return runnable.jni.exception==0 && runnable.jni.bool;
+        return runnable.exception==0 && runnable.bool;
     }
 
     /**
@@ -510,15 +811,18 @@ public class JSValue {
             otherJSValue = new JSValue(context, other);
         }
         final JSValue ojsv = otherJSValue;
+        if (immediate && ojsv.immediate) {
+            return type == ojsv.type && (type == TYPE_UNDEFINED || type == TYPE_NULL ||
+                    immediateValue == ojsv.immediateValue);
+        }
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = isStrictEqual(context.ctxRef(), valueRef, ojsv.valueRef);
+                bool = isStrictEqual(context.ctxRef(), valueRef(), ojsv.valueRef());
             }
         };
         context.sync(runnable);
-        return runnable.jni.bool;
+        return runnable.bool;
     }
 
     /* Getters */
@@ -528,15 +832,17 @@ public class JSValue {
      * @since 1.0
      */
     public Boolean toBoolean() {
+        if (immediate) {
+            return immediateValue != 0 && !Double.isNaN(immediateValue);
+        }
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = new JNIReturnObject();
-                jni.bool = toBoolean(context.ctxRef(), valueRef);
+                bool = toBoolean(context.ctxRef(), valueRef);
             }
         };
         context.sync(runnable);
-        return runnable.jni.bool;
+        return runnable.bool;
     }
     /**
      * Gets the numeric value of this JS value
@@ -544,27 +850,54 @@ public class JSValue {
      * @since 1.0
      */
     public Double toNumber() {
+        return toDouble();
+    }
+    /**
+     * Converts the value to a number, as toNumber() does, without boxing it
+     * @return  The numeric value
+     */
+    double toDouble() {
+        if (immediate) {
+            return immediateValue;
+        }
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = toNumber(context.ctxRef(), valueRef);
+                toNumber(context.ctxRef(), valueRef, this);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.exception!=0) {
-            context.throwJSException(new JSException(new JSValue(runnable.jni.exception, context)));
+        if (runnable.exception!=0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
             return 0.0;
         }
-        return runnable.jni.number;
+        return runnable.number;
     }
     @Override
     public String toString() {
+        if (immediate) {
+            String string = immediateString();
+            if (string != null) return string;
+        }
         try {
             return toJSString().toString();
         } catch (JSException e) {
             return e.toString();
         }
     }
+    /**
+     * Converts the value to a string, as toString() would, and copies it into 'dst' at its
+     * position without creating an intermediate Java String.  Intended for very large strings,
+     * such as JSON results.  If 'dst' does not have room for the whole string, only the first
+     * dst.remaining() characters are copied.
+     * @param dst  the buffer to copy into; its position is advanced past the copied characters
+     * @return  the length of the whole string
+     * @since 3.1
+     */
+    public int toString(CharBuffer dst) {
+        JSString string = toJSString();
+        return (string == null) ? 0 : string.getChars(dst);
+    }
     /**
      * Gets the JSString value of this JS value
      * @return  The JSString value
@@ -574,15 +907,15 @@ public class JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = toStringCopy(context.ctxRef(), valueRef);
+                toStringCopy(context.ctxRef(), valueRef(), this);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.exception!=0) {
-            context.throwJSException(new JSException(new JSValue(runnable.jni.exception, context)));
+        if (runnable.exception!=0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
             return null;
         }
-        return new JSString(runnable.jni.reference);
+        return new JSString(runnable.reference);
     }
     /**
      * If the JS value is an object, gets the JSObject
@@ -593,15 +926,15 @@ public class JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = toObject(context.ctxRef(), valueRef);
+                toObject(context.ctxRef(), valueRef(), this);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.exception!=0) {
-            context.throwJSException(new JSException(new JSValue(runnable.jni.exception, context)));
+        if (runnable.exception!=0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
             return new JSObject(context);
         }
-        return context.getObjectFromRef(runnable.jni.reference);
+        return context.getObjectFromRef(runnable.reference);
     }
 
     /**
@@ -610,9 +943,10 @@ public class JSValue {
      * @since 3.0
      */
     public JSFunction toFunction() {
-        if (isObject() && toObject() instanceof JSFunction) {
-            return (JSFunction)toObject();
-        } else if (!isObject()) {
+        JSObject object = isObject() ? toObject() : null;
+        if (object instanceof JSFunction) {
+            return (JSFunction)object;
+        } else if (object == null) {
             toObject();
             return null;
         } else {
@@ -627,9 +961,10 @@ public class JSValue {
      * @since 3.0
      */
     public JSBaseArray toJSArray() {
-        if (isObject() && toObject() instanceof JSBaseArray) {
-            return (JSBaseArray)toObject();
-        } else if (!isObject()) {
+        JSObject object = isObject() ? toObject() : null;
+        if (object instanceof JSBaseArray) {
+            return (JSBaseArray)object;
+        } else if (object == null) {
             toObject();
             return null;
         } else {
@@ -648,18 +983,18 @@ public class JSValue {
         JNIReturnClass runnable = new JNIReturnClass() {
             @Override
             public void run() {
-                jni = createJSONString(context.ctxRef(), valueRef, indent);
+                createJSONString(context.ctxRef(), valueRef(), indent, this);
             }
         };
         context.sync(runnable);
-        if (runnable.jni.exception!=0) {
-            context.throwJSException(new JSException(new JSValue(runnable.jni.exception, context)));
+        if (runnable.exception!=0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
             return null;
         }
-        if (runnable.jni.reference==0) {
+        if (runnable.reference==0) {
             return null;
         }
-        return new JSString(runnable.jni.reference).toString();
+        return new JSString(runnable.reference).toString();
     }
     /**
      * Gets the JSON of this JS value
@@ -669,47 +1004,65 @@ public class JSValue {
     public String toJSON() {
         return toJSON(0);
     }
+    /**
+     * Writes the JSON of this JS value to 'writer' a chunk at a time, without creating the
+     * whole document as a Java String
+     * @param writer  the destination of the JSON
+     * @param indent  number of spaces to indent
+     * @return  false if the value has no JSON representation (e.g. undefined), in which case
+     * nothing is written
+     * @throws IOException  if writing fails
+     * @since 3.1
+     */
+    public boolean toJSON(Writer writer, final int indent) throws IOException {
+        JNIReturnClass runnable = new JNIReturnClass() {
+            @Override
+            public void run() {
+                createJSONString(context.ctxRef(), valueRef(), indent, this);
+            }
+        };
+        context.sync(runnable);
+        if (runnable.exception!=0) {
+            context.throwJSException(new JSException(new JSValue(runnable.exception, context)));
+            return false;
+        }
+        if (runnable.reference==0) {
+            return false;
+        }
+        long stringRef = runnable.reference;
+        try {
+            int length = JSString.getLength(stringRef);
+            char [] chunk = new char[Math.min(length, JSON_CHUNK_SIZE)];
+            for (int start=0; start<length; start+=chunk.length) {
+                int count = Math.min(chunk.length, length - start);
+                JSString.getCharsToArray(stringRef, start, count, chunk, 0);
+                writer.write(chunk, 0, count);
+            }
+        } finally {
+            JSString.release(stringRef);
+        }
+        return true;
+    }
+
+    /**
+     * The number of characters moved between Java and JavaScript at a time when streaming JSON
+     */
+    static final int JSON_CHUNK_SIZE = 8192;
 
-    @SuppressWarnings("unchecked")
     protected Object toJavaObject(Class clazz) {
-        if (clazz == Object.class)
-            return this;
-        else if (clazz == Map.class)
-            return new JSObjectPropertiesMap(toObject(),Object.class);
-        else if (clazz == List.class)
-            return toJSArray();
-        else if (clazz == String.class)
-            return toString();
-        else if (clazz == Double.class || clazz == double.class)
-            return toNumber();
-        else if (clazz == Float.class || clazz == float.class)
-            return toNumber().floatValue();
-        else if (clazz == Integer.class || clazz == int.class)
-            return toNumber().intValue();
-        else if (clazz == Long.class || clazz == long.class)
-            return toNumber().longValue();
-        else if (clazz == Byte.class || clazz == byte.class)
-            return toNumber().byteValue();
-        else if (clazz == Short.class || clazz == short.class)
-            return toNumber().shortValue();
-        else if (clazz == Boolean.class || clazz == boolean.class)
-            return toBoolean();
-        else if (clazz.isArray())
-            return toJSArray().toArray(clazz.getComponentType());
-        else if (JSObject.class.isAssignableFrom(clazz))
-            return clazz.cast(toObject());
-        else if (JSValue.class.isAssignableFrom(clazz))
-            return clazz.cast(this);
-        return null;
+        return JSConverter.forClass(clazz).convert(this);
     }
 
     @Override
     public int hashCode() {
-        if (isBoolean()) return toBoolean().hashCode();
-        else if (isNumber()) return toNumber().hashCode();
-        else if (isString()) return toString().hashCode();
-        else if (isUndefined() || isNull()) return 0;
-        else return super.hashCode();
+        switch (type()) {
+            case TYPE_BOOLEAN:   return toBoolean().hashCode();
+            case TYPE_NUMBER:    return toNumber().hashCode();
+            case TYPE_STRING:    return toString().hashCode();
+            case TYPE_UNDEFINED:
+            case TYPE_NULL:      return 0;
+            default:             return super.hashCode();
+        }
     }
 
     /**
@@ -726,42 +1079,43 @@ public class JSValue {
      * @since 1.0
      */
     public Long valueRef() {
+        if (immediate) materialize();
         return valueRef;
     }
 
-    protected void unprotect() {
-        if (isProtected && !context.isDefunct)
-            context.markForUnprotection(valueRef());
+    /* Hands this value's protection over to the caller, which must unprotect it.  Returns
+     * false if it has already been given up. */
+    boolean release() {
+        if (!isProtected) return false;
+        context.untrack(this);
         isProtected = false;
+        return true;
     }
     private boolean isProtected = true;
+    JSReclaimer.Handle<JSValue> handle = null;
 
     /* Native functions */
-    @SuppressWarnings("unused")
     protected native int getType(long ctxRef, long valueRef);
-    protected native boolean isUndefined(long ctxRef, long valueRef);
-    protected native boolean isNull(long ctxRef, long valueRef );
-    protected native boolean isBoolean(long ctxRef, long valueRef );
-    protected native boolean isNumber(long ctxRef, long valueRef );
-    protected native boolean isString(long ctxRef, long valueRef );
-    protected native boolean isObject(long ctxRef, long valueRef );
     protected native boolean isArray(long ctxRef, long valueRef );
     protected native boolean isDate(long ctxRef, long valueRef );
-    protected native JNIReturnObject isEqual(long ctxRef, long a, long b );
+    protected native void isEqual(long ctxRef, long a, long b, JNIReturnObject out);
     protected native boolean isStrictEqual(long ctxRef, long a, long b );
-    protected native JNIReturnObject isInstanceOfConstructor(long ctxRef, long valueRef, long constructor);
+    protected native void isInstanceOfConstructor(long ctxRef, long valueRef, long constructor, JNIReturnObject out);
     protected native long makeUndefined(long ctx);
     protected native long makeNull(long ctx);
     protected native long makeBoolean(long ctx, boolean bool);
     protected native long makeNumber(long ctx, double number);
     protected native long makeString(long ctx, long stringRef);
     protected native long makeFromJSONString(long ctx, long stringRef);
-    protected native JNIReturnObject createJSONString(long ctxRef, long valueRef, int indent);
+    protected native void createJSONString(long ctxRef, long valueRef, int indent, JNIReturnObject out);
+    protected native void makeFromJava(long ctxRef, Object object, int maxDepth, JNIReturnObject out);
     protected native boolean toBoolean(long ctx, long valueRef);
-    protected native JNIReturnObject toNumber(long ctxRef, long valueRef);
-    protected native JNIReturnObject toStringCopy(long ctxRef, long valueRef);
-    protected native JNIReturnObject toObject(long ctxRef, long valueRef);
+    protected native void toNumber(long ctxRef, long valueRef, JNIReturnObject out);
+    protected native void toStringCopy(long ctxRef, long valueRef, JNIReturnObject out);
+    protected native void toObject(long ctxRef, long valueRef, JNIReturnObject out);
     protected native void protect(long ctx, long valueRef);
+    protected native int wrap(long ctx, long valueRef, boolean inlined, JNIReturnObject out);
     protected native void unprotect(long ctx, long valueRef);
+    protected static native void unprotectAll(long ctx, long[] valueRefs, int count);
     protected native void setException(long valueRef, long exceptionRefRef);
 }